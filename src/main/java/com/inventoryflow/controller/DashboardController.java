@@ -1,42 +1,113 @@
 package com.inventoryflow.controller;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 import com.inventoryflow.App;
+import com.inventoryflow.model.Locations;
 import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.model.ReorderQueue;
+import com.inventoryflow.model.StockSummary;
 import com.inventoryflow.service.ShopifyService;
+import com.inventoryflow.util.CatalogSnapshot;
+import com.inventoryflow.util.DatabaseManager;
 import com.inventoryflow.util.HelpDialog;
+import com.inventoryflow.util.ImageCache;
+import com.inventoryflow.util.ProductFilter;
+import com.inventoryflow.util.ProductSearchIndex;
+import com.inventoryflow.util.ProductTree;
+import com.inventoryflow.util.PulseMonitor;
+import com.inventoryflow.util.SortedProducts;
+import com.inventoryflow.util.ThumbnailLoader;
 
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.css.PseudoClass;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.IndexedCell;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.TreeTableCell;
+import javafx.scene.control.TreeTableColumn;
+import javafx.scene.control.TreeTableView;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 
 /**
  * Controller for the main dashboard displaying product inventory.
  */
 public class DashboardController {
 
+    private static final long SEARCH_DEBOUNCE_MILLIS = 150;
+    private static final long CACHE_WRITE_TIMEOUT_SECONDS = 10;
+    // Delta syncs only see updates, so deletions are picked up by a full sync this often
+    private static final Duration FULL_SYNC_INTERVAL = Duration.ofHours(24);
+
+    private static final PseudoClass OUT_OF_STOCK = PseudoClass.getPseudoClass("out-of-stock");
+    private static final PseudoClass LOW_STOCK = PseudoClass.getPseudoClass("low-stock");
+    private static final PseudoClass IN_STOCK = PseudoClass.getPseudoClass("in-stock");
+    private static final String[] INVENTORY_TEXT = new String[10_000];
+    private static final ObservableValue<String> NO_TEXT = new ReadOnlyStringWrapper();
+
+    @FXML private BorderPane dashboardRoot;
     @FXML private TableView<Product> productsTable;
     @FXML private TableColumn<Product, String> imageColumn;
     @FXML private TableColumn<Product, String> productNameColumn;
     @FXML private TableColumn<Product, String> skuColumn;
     @FXML private TableColumn<Product, Number> inventoryColumn;
 
+    @FXML private TreeTableView<Product> productsTree;
+    @FXML private TreeTableColumn<Product, String> treeImageColumn;
+    @FXML private TreeTableColumn<Product, String> treeNameColumn;
+    @FXML private TreeTableColumn<Product, String> treeSkuColumn;
+    @FXML private TreeTableColumn<Product, Number> treeInventoryColumn;
+
     @FXML private TextField searchField;
+    @FXML private ComboBox<Integer> locationChoice;
+    @FXML private ToggleButton groupToggle;
+    @FXML private ToggleButton reorderToggle;
     @FXML private Button syncButton;
+    @FXML private Button fullSyncButton;
+    @FXML private Button refreshStockButton;
 
     @FXML private VBox loadingOverlay;
     @FXML private Label loadingLabel;
@@ -45,54 +116,172 @@ public class DashboardController {
 
     @FXML private Label statusLabel;
     @FXML private Label countLabel;
+    @FXML private Label stockLabel;
+    @FXML private Label pulseLabel;
+    @FXML private Spinner<Integer> syncConcurrencySpinner;
+
+    @FXML private VBox reorderPanel;
+    @FXML private Spinner<Integer> reorderLimitSpinner;
+    @FXML private Spinner<Integer> reorderThresholdSpinner;
+    @FXML private Label reorderCountLabel;
+    @FXML private ListView<Product> reorderList;
 
     private ShopifyService shopifyService;
-    private ObservableList<Product> productList;
+    private ProductList productList;
     private FilteredList<Product> filteredProducts;
+    private SortedProducts sortedProducts;
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    // Searches run here, debounced, so typing never waits on filtering
+    private final ScheduledExecutorService searchExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong searchGeneration = new AtomicLong();
+    private ScheduledFuture<?> pendingSearch;
+    private ThumbnailLoader thumbnailLoader;
+    private PulseMonitor pulseMonitor;
+    private ProductTree productTree;
+    private ReorderQueue reorderQueue;
+
+    private final Queue<List<Product>> pendingPages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final List<Product> syncedRows = new ArrayList<>();
+    // Cache writes run one at a time, in sync order, off the FX thread
+    private final ExecutorService cacheWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean awaitingFirstPage;
+    private boolean deltaSync;
+    private int loadedCount;
 
     @FXML
     public void initialize() {
         shopifyService = new ShopifyService();
-        productList = FXCollections.observableArrayList();
+        productList = new ProductList();
+        searchIndex.attach(productList);
         filteredProducts = new FilteredList<>(productList, p -> true);
+        sortedProducts = new SortedProducts(filteredProducts, Platform::runLater);
+
+        thumbnailLoader = new ThumbnailLoader(ImageCache.getInstance(), ThumbnailLoader.DEFAULT_CONCURRENCY,
+                row -> row >= 0 && row < sortedProducts.size() ? sortedProducts.get(row).getImageUrl() : null,
+                Platform::runLater);
 
         setupTableColumns();
-        productsTable.setItems(filteredProducts);
+        productsTable.setItems(sortedProducts);
+        // Sorting happens in the sorted view, off the FX thread, instead of in the table
+        productsTable.setSortPolicy(table -> {
+            sortedProducts.setSortOrder(sortOrder(table.getSortOrder()));
+            return true;
+        });
+        productTree = new ProductTree(filteredProducts);
+        setupTreeColumns();
+        productsTree.setRoot(productTree.getRoot());
 
-        // Auto-load products on startup
-        handleSync();
+        StockSummary stock = productList.getStockSummary();
+        stockLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> String.format("%,d out of stock · %,d low · %,d units",
+                        stock.outOfStockProperty().get(), stock.lowStockProperty().get(),
+                        stock.unitsOnHandProperty().get()),
+                stock.outOfStockProperty(), stock.lowStockProperty(), stock.unitsOnHandProperty()));
+
+        reorderQueue = new ReorderQueue(productList, ReorderQueue.DEFAULT_LIMIT, StockSummary.LOW_STOCK_THRESHOLD);
+        setupReorderPanel();
+        setupLocationChoice();
+        setupSyncConcurrency();
+        productsTable.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::watchViewport));
+
+        // F3 shows frame times, for checking that scrolling keeps up
+        pulseMonitor = new PulseMonitor(pulseLabel);
+        dashboardRoot.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.F3) {
+                pulseMonitor.toggle();
+                event.consume();
+            }
+        });
+
+        // Show the cached catalog right away, then revalidate it against Shopify
+        statusLabel.setText("Loading cached catalog...");
+        CompletableFuture.supplyAsync(this::loadCachedCatalog, cacheWriter)
+                .whenComplete((cached, error) -> Platform.runLater(() -> {
+                    if (error == null && !cached.isEmpty() && productList.isEmpty()) {
+                        productList.setAll(cached);
+                        refreshLocationChoice();
+                        updateCountLabel();
+                    }
+                    handleSync();
+                }));
+    }
+
+    /**
+     * Reads the cached catalog from the memory-mapped snapshot, falling back to the
+     * SQLite cache when there is no usable snapshot.
+     */
+    private List<Product> loadCachedCatalog() {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(CatalogSnapshot.defaultPath());
+        if (snapshot != null) {
+            return snapshot.toProducts();
+        }
+        return DatabaseManager.getInstance().loadCatalog();
+    }
+
+    private List<SortedProducts.SortColumn> sortOrder(List<TableColumn<Product, ?>> columns) {
+        List<SortedProducts.SortColumn> order = new ArrayList<>(columns.size());
+        for (TableColumn<Product, ?> column : columns) {
+            SortedProducts.Field field = column == productNameColumn ? SortedProducts.Field.NAME
+                    : column == skuColumn ? SortedProducts.Field.SKU
+                    : column == inventoryColumn ? SortedProducts.Field.INVENTORY
+                    : null;
+            if (field != null) {
+                order.add(new SortedProducts.SortColumn(field,
+                        column.getSortType() == TableColumn.SortType.ASCENDING));
+            }
+        }
+        return order;
     }
 
     private void setupTableColumns() {
         // Image column with custom cell factory
         imageColumn.setCellValueFactory(data -> data.getValue().imageUrlProperty());
+        ImageCache imageCache = ImageCache.getInstance();
         imageColumn.setCellFactory(column -> new TableCell<>() {
-            private final ImageView imageView = new ImageView();
-
-            {
-                imageView.setFitWidth(50);
-                imageView.setFitHeight(50);
-                imageView.setPreserveRatio(true);
-                imageView.setSmooth(true);
-            }
+            private final ImageView imageView = thumbnailView();
+            private String shownUrl;
+            private ThumbnailLoader.Request pendingLoad;
 
             @Override
             protected void updateItem(String imageUrl, boolean empty) {
                 super.updateItem(imageUrl, empty);
                 if (empty || imageUrl == null || imageUrl.isEmpty()) {
+                    cancelPendingLoad();
+                    shownUrl = null;
+                    imageView.setImage(null);
                     setGraphic(null);
-                } else {
-                    try {
-                        // Load image with size parameters for efficiency
-                        String optimizedUrl = imageUrl.contains("?")
-                                ? imageUrl + "&width=100"
-                                : imageUrl + "?width=100";
-                        Image image = new Image(optimizedUrl, 50, 50, true, true, true);
+                    return;
+                }
+                if (imageUrl.equals(shownUrl)) {
+                    return;
+                }
+                // The cell was reused for another row, so its old load is no longer wanted
+                cancelPendingLoad();
+                shownUrl = imageUrl;
+                setGraphic(imageView);
+                Image cached = imageCache.getIfPresent(imageUrl);
+                imageView.setImage(cached);
+                if (cached == null) {
+                    pendingLoad = thumbnailLoader.request(imageUrl, getIndex(), image -> {
+                        pendingLoad = null;
                         imageView.setImage(image);
-                        setGraphic(imageView);
-                    } catch (Exception e) {
-                        setGraphic(null);
-                    }
+                    });
+                }
+            }
+
+            private void cancelPendingLoad() {
+                if (pendingLoad != null) {
+                    pendingLoad.cancel();
+                    pendingLoad = null;
                 }
             }
         });
@@ -106,78 +295,570 @@ public class DashboardController {
         // Inventory column with formatting
         inventoryColumn.setCellValueFactory(data -> data.getValue().inventoryLevelProperty());
         inventoryColumn.setCellFactory(column -> new TableCell<>() {
+            private boolean showing;
+            private int shownLevel;
+
+            {
+                getStyleClass().add("inventory-cell");
+            }
+
             @Override
             protected void updateItem(Number item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
+                    showing = false;
                     setText(null);
-                    setStyle("");
-                } else {
-                    int inventory = item.intValue();
-                    setText(String.valueOf(inventory));
-
-                    // Color code based on inventory level
-                    if (inventory == 0) {
-                        setStyle("-fx-text-fill: #ef4444;"); // Red for out of stock
-                    } else if (inventory < 10) {
-                        setStyle("-fx-text-fill: #f59e0b;"); // Orange for low stock
-                    } else {
-                        setStyle("-fx-text-fill: #10b981;"); // Green for in stock
-                    }
+                    setStockState(null);
+                    return;
                 }
+                int inventory = item.intValue();
+                if (showing && inventory == shownLevel) {
+                    return;
+                }
+                showing = true;
+                shownLevel = inventory;
+                setText(inventoryText(inventory));
+
+                // Color code based on inventory level; the colors are in the stylesheet
+                setStockState(stockState(inventory));
+            }
+
+            private void setStockState(PseudoClass state) {
+                pseudoClassStateChanged(OUT_OF_STOCK, state == OUT_OF_STOCK);
+                pseudoClassStateChanged(LOW_STOCK, state == LOW_STOCK);
+                pseudoClassStateChanged(IN_STOCK, state == IN_STOCK);
             }
         });
     }
 
+    /**
+     * Sets up the grouped view. Product rows show the title, image, variant count and
+     * total inventory; variant rows under them only the SKU and inventory level.
+     */
+    private void setupTreeColumns() {
+        treeImageColumn.setCellValueFactory(data -> ProductTree.isVariantRow(data.getValue())
+                ? NO_TEXT : data.getValue().getValue().imageUrlProperty());
+        ImageCache imageCache = ImageCache.getInstance();
+        treeImageColumn.setCellFactory(column -> new TreeTableCell<>() {
+            private final ImageView imageView = thumbnailView();
+            private String shownUrl;
+
+            @Override
+            protected void updateItem(String imageUrl, boolean empty) {
+                super.updateItem(imageUrl, empty);
+                if (empty || imageUrl == null || imageUrl.isEmpty()) {
+                    shownUrl = null;
+                    imageView.setImage(null);
+                    setGraphic(null);
+                    return;
+                }
+                if (imageUrl.equals(shownUrl)) {
+                    return;
+                }
+                shownUrl = imageUrl;
+                setGraphic(imageView);
+                Image cached = imageCache.getIfPresent(imageUrl);
+                imageView.setImage(cached);
+                if (cached == null) {
+                    // Far fewer rows than the flat table, so no viewport scheduling here
+                    imageCache.load(imageUrl).thenAccept(image -> Platform.runLater(() -> {
+                        if (imageUrl.equals(shownUrl)) {
+                            imageView.setImage(image);
+                        }
+                    }));
+                }
+            }
+        });
+
+        treeNameColumn.setCellValueFactory(data -> ProductTree.isVariantRow(data.getValue())
+                ? NO_TEXT : data.getValue().getValue().productNameProperty());
+
+        treeSkuColumn.setCellValueFactory(data -> data.getValue() instanceof ProductTree.GroupItem group
+                ? group.summaryProperty() : data.getValue().getValue().skuProperty());
+
+        treeInventoryColumn.setCellValueFactory(data -> data.getValue() instanceof ProductTree.GroupItem group
+                ? group.totalInventoryProperty() : data.getValue().getValue().inventoryLevelProperty());
+        treeInventoryColumn.setCellFactory(column -> new TreeTableCell<>() {
+            {
+                getStyleClass().add("inventory-cell");
+            }
+
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                PseudoClass state = empty || item == null ? null : stockState(item.intValue());
+                setText(state == null ? null : inventoryText(item.intValue()));
+                pseudoClassStateChanged(OUT_OF_STOCK, state == OUT_OF_STOCK);
+                pseudoClassStateChanged(LOW_STOCK, state == LOW_STOCK);
+                pseudoClassStateChanged(IN_STOCK, state == IN_STOCK);
+            }
+        });
+    }
+
+    /**
+     * Sets up the reorder panel: the lowest-stock variants, colored like the inventory
+     * column. Clicking one selects it in the table.
+     */
+    private void setupReorderPanel() {
+        reorderList.setItems(reorderQueue.getTop());
+        reorderList.setCellFactory(list -> new ListCell<>() {
+            {
+                getStyleClass().add("inventory-cell");
+            }
+
+            @Override
+            protected void updateItem(Product product, boolean empty) {
+                super.updateItem(product, empty);
+                PseudoClass state = empty || product == null ? null : stockState(product.getInventoryLevel());
+                setText(state == null ? null
+                        : inventoryText(product.getInventoryLevel()) + "   " + product.getSku()
+                                + " · " + product.getProductName());
+                pseudoClassStateChanged(OUT_OF_STOCK, state == OUT_OF_STOCK);
+                pseudoClassStateChanged(LOW_STOCK, state == LOW_STOCK);
+                pseudoClassStateChanged(IN_STOCK, state == IN_STOCK);
+            }
+        });
+        reorderList.setOnMouseClicked(event -> {
+            Product product = reorderList.getSelectionModel().getSelectedItem();
+            if (product != null && productsTable.isVisible()) {
+                productsTable.getSelectionModel().select(product);
+                productsTable.scrollTo(product);
+            }
+        });
+
+        reorderLimitSpinner.getValueFactory().setValue(reorderQueue.getLimit());
+        reorderThresholdSpinner.getValueFactory().setValue(reorderQueue.getThreshold());
+        reorderLimitSpinner.valueProperty().addListener((obs, oldLimit, limit) -> reorderQueue.setLimit(limit));
+        reorderThresholdSpinner.valueProperty().addListener(
+                (obs, oldThreshold, threshold) -> reorderQueue.setThreshold(threshold));
+        reorderCountLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> String.format("%,d variants below %,d", reorderQueue.belowThresholdProperty().get(),
+                        reorderThresholdSpinner.getValue()),
+                reorderQueue.belowThresholdProperty(), reorderThresholdSpinner.valueProperty()));
+    }
+
+    private static ImageView thumbnailView() {
+        ImageView imageView = new ImageView();
+        imageView.setFitWidth(ImageCache.THUMBNAIL_SIZE);
+        imageView.setFitHeight(ImageCache.THUMBNAIL_SIZE);
+        imageView.setPreserveRatio(true);
+        imageView.setSmooth(true);
+        return imageView;
+    }
+
+    private static PseudoClass stockState(int inventory) {
+        if (StockSummary.isOutOfStock(inventory)) {
+            return OUT_OF_STOCK;
+        }
+        return StockSummary.isLowStock(inventory) ? LOW_STOCK : IN_STOCK;
+    }
+
+    /**
+     * Formats an inventory level, reusing the string for common levels so scrolling
+     * doesn't allocate one per cell update.
+     */
+    private static String inventoryText(int inventory) {
+        if (inventory < 0 || inventory >= INVENTORY_TEXT.length) {
+            return Integer.toString(inventory);
+        }
+        String text = INVENTORY_TEXT[inventory];
+        if (text == null) {
+            text = Integer.toString(inventory);
+            INVENTORY_TEXT[inventory] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Sets up the parallel requests picker from the stored setting; changes apply to
+     * the next full sync.
+     */
+    private void setupSyncConcurrency() {
+        DatabaseManager db = DatabaseManager.getInstance();
+        syncConcurrencySpinner.getValueFactory().setValue(db.getSyncConcurrency());
+        syncConcurrencySpinner.valueProperty().addListener((obs, oldConcurrency, concurrency) -> {
+            shopifyService.setSyncConcurrency(concurrency);
+            db.storeSyncConcurrency(concurrency);
+        });
+    }
+
+    /**
+     * Sets up the location picker. Items are {@link Locations} indexes, with
+     * {@link Locations#ALL} first for the totals.
+     */
+    private void setupLocationChoice() {
+        locationChoice.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Integer location) {
+                return location == null || location == Locations.ALL
+                        ? "All locations" : Locations.getInstance().getName(location);
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                return null;
+            }
+        });
+        refreshLocationChoice();
+        locationChoice.setValue(Locations.ALL);
+    }
+
+    /** Lists the locations seen so far, which grow as the cache loads and syncs run. */
+    private void refreshLocationChoice() {
+        int known = Locations.getInstance().size();
+        if (locationChoice.getItems().size() == known + 1) {
+            return;
+        }
+        List<Integer> locations = new ArrayList<>(known + 1);
+        locations.add(Locations.ALL);
+        for (int i = 0; i < known; i++) {
+            locations.add(i);
+        }
+        Integer selected = locationChoice.getValue();
+        locationChoice.getItems().setAll(locations);
+        locationChoice.setValue(selected != null ? selected : Locations.ALL);
+    }
+
+    /**
+     * Shows the stock at the picked location in every view. Rows whose level changes
+     * are re-filtered, re-sorted and re-counted like after a stock refresh.
+     */
+    @FXML
+    private void handleLocationChoice() {
+        Integer location = locationChoice.getValue();
+        if (location != null && location != productList.getLocation() && productList.showLocation(location) > 0) {
+            updateCountLabel();
+        }
+    }
+
+    /**
+     * Follows the table's scroll position so thumbnails are loaded for the visible
+     * rows first. The virtual flow only exists once the table skin is built.
+     */
+    private void watchViewport() {
+        if (productsTable.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+            flow.positionProperty().addListener((obs, oldPosition, newPosition) -> updateViewport(flow));
+            updateViewport(flow);
+        }
+    }
+
+    private void updateViewport(VirtualFlow<?> flow) {
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        IndexedCell<?> last = flow.getLastVisibleCell();
+        if (first != null && last != null) {
+            thumbnailLoader.setViewport(first.getIndex(), last.getIndex());
+        }
+    }
+
+    /**
+     * Schedules the search once typing pauses. The matches are computed on the search
+     * thread, and only the newest query's result is applied to the table, in one
+     * predicate change; an older search still running gives up when it sees it was
+     * superseded.
+     */
     @FXML
     private void handleSearch() {
-        String searchText = searchField.getText();
-        if (searchText == null || searchText.isEmpty()) {
-            filteredProducts.setPredicate(p -> true);
-        } else {
-            String lowerSearch = searchText.toLowerCase();
-            filteredProducts.setPredicate(product ->
-                    (product.getSku() != null &&
-                     product.getSku().toLowerCase().contains(lowerSearch)) ||
-                    (product.getProductName() != null &&
-                     product.getProductName().toLowerCase().contains(lowerSearch))
-            );
+        String query = searchField.getText();
+        long generation = searchGeneration.incrementAndGet();
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
         }
-        updateCountLabel();
+        BooleanSupplier superseded = () -> searchGeneration.get() != generation;
+        pendingSearch = searchExecutor.schedule(() -> {
+            Predicate<Product> matcher = ProductFilter.parse(query).prepare(searchIndex, superseded);
+            if (matcher == null) {
+                return;
+            }
+            Platform.runLater(() -> {
+                if (!superseded.getAsBoolean()) {
+                    filteredProducts.setPredicate(matcher);
+                    updateCountLabel();
+                }
+            });
+        }, SEARCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Syncs only what changed since the last successful sync when a watermark exists,
+     * falling back to a full sync otherwise. A delta can't see products deleted in
+     * Shopify, so once the last full sync is older than {@link #FULL_SYNC_INTERVAL} a
+     * full sync runs instead and drops them.
+     */
     @FXML
     private void handleSync() {
-        showLoading(true, "Syncing inventory from Shopify...");
+        DatabaseManager db = DatabaseManager.getInstance();
+        Instant lastSync = db.getLastSyncTime();
+        Instant lastFullSync = db.getLastFullSyncTime();
+        boolean fullSyncDue = lastFullSync == null
+                || lastFullSync.isBefore(Instant.now().minus(FULL_SYNC_INTERVAL));
+        if (lastSync == null || productList.isEmpty() || fullSyncDue) {
+            startFullSync();
+        } else {
+            startDeltaSync(lastSync);
+        }
+    }
+
+    @FXML
+    private void handleFullSync() {
+        startFullSync();
+    }
+
+    /**
+     * Refetches only stock quantities for the rows already loaded, leaving titles,
+     * images and SKUs as they are.
+     */
+    @FXML
+    private void handleRefreshStock() {
+        if (productList.isEmpty()) {
+            startFullSync();
+            return;
+        }
         hideError();
-        syncButton.setDisable(true);
-        statusLabel.setText("Syncing...");
+        setSyncButtonsDisabled(true);
+        statusLabel.setText("Refreshing stock...");
 
-        shopifyService.fetchProducts()
-                .thenAccept(products -> Platform.runLater(() -> {
-                    productList.clear();
-                    productList.addAll(products);
-                    showLoading(false, null);
-                    syncButton.setDisable(false);
-                    statusLabel.setText("Last synced: just now");
-                    updateCountLabel();
+        List<String> inventoryItemIds = new ArrayList<>(productList.size());
+        for (Product product : productList) {
+            inventoryItemIds.add(product.getInventoryItemId());
+        }
 
-                    // Re-apply filter
-                    handleSearch();
+        shopifyService.refreshInventoryLevels(inventoryItemIds)
+                .thenAccept(levels -> Platform.runLater(() -> {
+                    applyInventoryLevels(levels);
+                    cacheInventoryLevels(levels);
+                    setSyncButtonsDisabled(false);
+                    statusLabel.setText("Stock refreshed: just now");
                 }))
-                .exceptionally(error -> {
-                    Platform.runLater(() -> {
-                        showLoading(false, null);
-                        showError(error.getMessage());
-                        syncButton.setDisable(false);
-                        statusLabel.setText("Sync failed");
-                    });
-                    return null;
-                });
+                .exceptionally(this::failSync);
+    }
+
+    private void startFullSync() {
+        Instant syncStartedAt = Instant.now();
+        beginSync("Syncing inventory from Shopify...", false);
+
+        shopifyService.streamProducts(this::enqueuePage)
+                .thenAccept(total -> Platform.runLater(() -> {
+                    drainPendingPages();
+                    // Rows the sync didn't deliver again were deleted from the store
+                    productList.removeStale();
+                    awaitingFirstPage = false;
+                    finishSync(syncStartedAt);
+                }))
+                .exceptionally(this::failSync);
+    }
+
+    private void startDeltaSync(Instant lastSync) {
+        Instant syncStartedAt = Instant.now();
+        beginSync("Syncing changes from Shopify...", true);
+
+        shopifyService.streamProductsUpdatedSince(lastSync, this::enqueuePage)
+                .thenCompose(total -> shopifyService.fetchInventoryLevelsUpdatedSince(lastSync))
+                .thenAccept(levels -> Platform.runLater(() -> {
+                    drainPendingPages();
+                    applyInventoryLevels(levels);
+                    cacheInventoryLevels(levels);
+                    finishSync(syncStartedAt);
+                }))
+                .exceptionally(this::failSync);
+    }
+
+    private void beginSync(String message, boolean delta) {
+        hideError();
+        setSyncButtonsDisabled(true);
+        statusLabel.setText("Syncing...");
+
+        deltaSync = delta;
+        loadedCount = 0;
+        syncedRows.clear();
+        if (delta) {
+            // Changes merge into the rows already on screen, no need to block the table
+            awaitingFirstPage = false;
+        } else {
+            showLoading(true, message);
+            // Pages merge into the current rows, and only a finished sync removes the
+            // ones it didn't see, so a failed sync never leaves the table empty
+            productList.startRefresh();
+            awaitingFirstPage = true;
+        }
+    }
+
+    private void finishSync(Instant syncStartedAt) {
+        cacheSyncedRows(syncStartedAt);
+        refreshLocationChoice();
+        showLoading(false, null);
+        setSyncButtonsDisabled(false);
+        statusLabel.setText(deltaSync && loadedCount > 0
+                ? "Last synced: just now (" + loadedCount + " changed)"
+                : "Last synced: just now");
+        updateCountLabel();
+    }
+
+    private Void failSync(Throwable error) {
+        Platform.runLater(() -> {
+            drainPendingPages();
+            awaitingFirstPage = false;
+            showLoading(false, null);
+            showError(error.getMessage());
+            setSyncButtonsDisabled(false);
+            statusLabel.setText("Sync failed");
+        });
+        return null;
+    }
+
+    /**
+     * Queues a page received on the sync thread. Only one drain is scheduled on the
+     * FX thread at a time, so pages arriving faster than the UI can render are
+     * coalesced into a single list update.
+     */
+    private void enqueuePage(List<Product> page) {
+        pendingPages.add(page);
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainPendingPages);
+        }
+    }
+
+    private void drainPendingPages() {
+        drainScheduled.set(false);
+
+        List<Product> batch = new ArrayList<>();
+        List<Product> page;
+        while ((page = pendingPages.poll()) != null) {
+            batch.addAll(page);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Rows are matched by inventory item, so unchanged rows keep their cells,
+        // selection and scroll position
+        if (deltaSync) {
+            // A changed product arrives with all of its variants, so replace its rows as a unit
+            productList.replaceProducts(batch);
+        } else {
+            productList.merge(batch);
+        }
+        if (awaitingFirstPage) {
+            awaitingFirstPage = false;
+            showLoading(false, null);
+        }
+
+        syncedRows.addAll(batch);
+        loadedCount += batch.size();
+        statusLabel.setText("Syncing... " + loadedCount + " products loaded");
+        updateCountLabel();
+    }
+
+    /**
+     * Writes the rows of a finished sync to the local catalog cache. The watermark is
+     * only advanced once they are stored, so a cache left behind by a crash is never
+     * newer on paper than in fact. The writer gets copies of the rows, since the FX
+     * thread keeps updating the originals while it works.
+     */
+    private void cacheSyncedRows(Instant syncStartedAt) {
+        if (cacheWriter.isShutdown()) {
+            // Finished after logout; the next session's sync stores it again
+            return;
+        }
+        List<Product> rows = ProductStore.copyOf(syncedRows);
+        List<Product> snapshotRows = ProductStore.copyOf(productList);
+        boolean delta = deltaSync;
+        syncedRows.clear();
+        cacheWriter.execute(() -> {
+            DatabaseManager db = DatabaseManager.getInstance();
+            try {
+                if (delta) {
+                    db.upsertProducts(rows);
+                } else {
+                    db.replaceCatalog(rows);
+                }
+                db.storeLastSyncTime(syncStartedAt);
+                if (!delta) {
+                    db.storeLastFullSyncTime(syncStartedAt);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Warning: failed to cache catalog: " + e.getMessage());
+            }
+            writeSnapshot(snapshotRows);
+        });
+    }
+
+    private void cacheInventoryLevels(Map<String, int[]> levels) {
+        if (cacheWriter.isShutdown()) {
+            return;
+        }
+        List<Product> snapshotRows = ProductStore.copyOf(productList);
+        cacheWriter.execute(() -> {
+            try {
+                DatabaseManager.getInstance().updateLocationLevels(levels);
+            } catch (RuntimeException e) {
+                System.err.println("Warning: failed to cache inventory: " + e.getMessage());
+            }
+            writeSnapshot(snapshotRows);
+        });
+    }
+
+    /**
+     * Rewrites the startup snapshot on the cache writer thread. A snapshot that could
+     * not be written is removed so the next launch reads the SQLite cache instead.
+     */
+    private void writeSnapshot(List<Product> rows) {
+        Path file = CatalogSnapshot.defaultPath();
+        try {
+            CatalogSnapshot.write(file, rows);
+        } catch (IOException e) {
+            System.err.println("Warning: failed to write catalog snapshot: " + e.getMessage());
+            CatalogSnapshot.delete(file);
+        }
+    }
+
+    private void applyInventoryLevels(Map<String, int[]> levels) {
+        refreshLocationChoice();
+        // Changed rows are re-tested by the filter, so an inventory search may show more or fewer
+        if (productList.updateLocationLevels(levels) > 0) {
+            updateCountLabel();
+        }
+    }
+
+    /**
+     * Switches between one row per variant and one row per product.
+     */
+    @FXML
+    private void handleGroupToggle() {
+        boolean grouped = groupToggle.isSelected();
+        productTree.setActive(grouped);
+        productsTree.setVisible(grouped);
+        productsTree.setManaged(grouped);
+        productsTable.setVisible(!grouped);
+        productsTable.setManaged(!grouped);
+    }
+
+    @FXML
+    private void handleReorderToggle() {
+        boolean shown = reorderToggle.isSelected();
+        reorderPanel.setVisible(shown);
+        reorderPanel.setManaged(shown);
     }
 
     @FXML
     private void handleLogout() {
+        thumbnailLoader.shutdown();
+        pulseMonitor.stop();
+        // Stops a sync still running, such as one waiting on a bulk export
+        shopifyService.shutdown();
+        // The next login builds a new controller with its own workers
+        searchExecutor.shutdownNow();
+        // Queued cache writes still finish, so the cache matches what was shown; they
+        // look up location IDs, so the locations are only forgotten once they are done
+        cacheWriter.shutdown();
+        try {
+            if (!cacheWriter.awaitTermination(CACHE_WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Warning: catalog cache writes still running at logout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // The next login may be to another store; its cache load interns the locations again
+        Locations.getInstance().clear();
         try {
             App.setRoot("login");
         } catch (Exception e) {
@@ -215,6 +896,12 @@ public class DashboardController {
         errorBox.setManaged(false);
     }
 
+    private void setSyncButtonsDisabled(boolean disabled) {
+        syncButton.setDisable(disabled);
+        fullSyncButton.setDisable(disabled);
+        refreshStockButton.setDisable(disabled);
+    }
+
     private void updateCountLabel() {
         int showing = filteredProducts.size();
         int total = productList.size();
@@ -0,0 +1,75 @@
+package com.inventoryflow.model;
+
+/**
+ * Per-location quantities of one variant packed into a single int array: pairs of
+ * a {@link Locations} index and the quantity available there, ordered by location.
+ * Shops stock a variant at a handful of locations, so lookups scan the pairs, and
+ * an array is never changed once built; adding a level returns a new one.
+ */
+public final class LocationLevels {
+
+    public static final int[] EMPTY = new int[0];
+
+    private LocationLevels() {
+    }
+
+    /** Adds a quantity at a location, summing with any quantity already there. */
+    public static int[] add(int[] levels, int location, int available) {
+        int at = 0;
+        while (at < levels.length && levels[at] < location) {
+            at += 2;
+        }
+        if (at < levels.length && levels[at] == location) {
+            int[] summed = levels.clone();
+            summed[at + 1] += available;
+            return summed;
+        }
+        int[] added = new int[levels.length + 2];
+        System.arraycopy(levels, 0, added, 0, at);
+        added[at] = location;
+        added[at + 1] = available;
+        System.arraycopy(levels, at, added, at + 2, levels.length - at);
+        return added;
+    }
+
+    /** Adds every quantity of {@code more} to {@code levels}. */
+    public static int[] addAll(int[] levels, int[] more) {
+        for (int i = 0; i < more.length; i += 2) {
+            levels = add(levels, more[i], more[i + 1]);
+        }
+        return levels;
+    }
+
+    /** The quantity at a location, 0 where the variant isn't stocked, or the total for {@link Locations#ALL}. */
+    public static int at(int[] levels, int location) {
+        if (location == Locations.ALL) {
+            return total(levels);
+        }
+        for (int i = 0; i < levels.length; i += 2) {
+            if (levels[i] == location) {
+                return levels[i + 1];
+            }
+        }
+        return 0;
+    }
+
+    public static int total(int[] levels) {
+        int total = 0;
+        for (int i = 1; i < levels.length; i += 2) {
+            total += levels[i];
+        }
+        return total;
+    }
+
+    public static int count(int[] levels) {
+        return levels.length / 2;
+    }
+
+    public static int locationAt(int[] levels, int i) {
+        return levels[2 * i];
+    }
+
+    public static int availableAt(int[] levels, int i) {
+        return levels[2 * i + 1];
+    }
+}
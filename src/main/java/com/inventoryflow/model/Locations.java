@@ -0,0 +1,84 @@
+package com.inventoryflow.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The stock locations seen so far, shared by every row of the catalog. Each
+ * location GID is given a small index the first time it shows up, and per-location
+ * quantities refer to locations by that index (see {@link LocationLevels}), so a
+ * variant stocked at three locations costs six ints rather than three ID strings.
+ * Indexes are only meaningful within this process; anything persisted uses the GID.
+ *
+ * <p>Sync threads add locations while the FX thread reads them, so every method
+ * is synchronized.
+ */
+public final class Locations {
+
+    /** Stands for every location at once, where a location index is expected. */
+    public static final int ALL = -1;
+
+    private static Locations instance;
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+
+    private Locations() {
+    }
+
+    public static synchronized Locations getInstance() {
+        if (instance == null) {
+            instance = new Locations();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the index of a location, adding it if it is new. A non-null name
+     * replaces the one on record, since locations can be renamed.
+     */
+    public synchronized int intern(String id, String name) {
+        Integer index = indexes.get(id);
+        if (index == null) {
+            index = ids.size();
+            indexes.put(id, index);
+            ids.add(id);
+            names.add(name != null ? name : id);
+        } else if (name != null) {
+            names.set(index, name);
+        }
+        return index;
+    }
+
+    /**
+     * Forgets every location, for when the catalog that refers to them is dropped,
+     * such as on logout or a switch to another store. Rows holding old indexes must
+     * not be used afterwards.
+     */
+    public synchronized void clear() {
+        indexes.clear();
+        ids.clear();
+        names.clear();
+    }
+
+    /** The index of a known location, or -1. */
+    public synchronized int indexOf(String id) {
+        Integer index = indexes.get(id);
+        return index != null ? index : -1;
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    public synchronized String getId(int index) {
+        return ids.get(index);
+    }
+
+    public synchronized String getName(int index) {
+        return names.get(index);
+    }
+}
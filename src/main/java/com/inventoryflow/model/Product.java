@@ -7,52 +7,198 @@ import javafx.beans.property.StringProperty;
 
 /**
  * Model representing a Shopify product with inventory information.
+ * A product is a view of one row in a {@link ProductStore}; its JavaFX properties
+ * are only created when something asks for them, such as a table cell binding a
+ * column, and write through to the store.
  */
 public class Product {
-    private final StringProperty id;
-    private final StringProperty imageUrl;
-    private final StringProperty productName;
-    private final StringProperty sku;
-    private final IntegerProperty inventoryLevel;
-    private final StringProperty inventoryItemId;
+    private final ProductStore store;
+    private final int row;
+    private Properties properties;
+    private int searchDoc = -1;
 
     public Product(String id, String imageUrl, String productName, String sku,
                    int inventoryLevel, String inventoryItemId) {
-        this.id = new SimpleStringProperty(id);
-        this.imageUrl = new SimpleStringProperty(imageUrl);
-        this.productName = new SimpleStringProperty(productName);
-        this.sku = new SimpleStringProperty(sku);
-        this.inventoryLevel = new SimpleIntegerProperty(inventoryLevel);
-        this.inventoryItemId = new SimpleStringProperty(inventoryItemId);
+        this.store = new ProductStore(1);
+        this.row = store.append(id, imageUrl, productName, sku, inventoryLevel, inventoryItemId);
     }
 
+    Product(ProductStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    /** Appends a copy of this row to another store and returns its row there. */
+    int copyTo(ProductStore target) {
+        return target.appendCopy(store, row);
+    }
+
+    /**
+     * The row's document ID in the search index that last indexed it, or -1. Kept
+     * on the row so a search tests it with one array read.
+     */
+    public int getSearchDoc() { return searchDoc; }
+    public void setSearchDoc(int value) { searchDoc = value; }
+
     // ID
-    public String getId() { return id.get(); }
-    public void setId(String value) { id.set(value); }
-    public StringProperty idProperty() { return id; }
+    public String getId() { return store.getId(row); }
+    public void setId(String value) {
+        if (properties != null && properties.id != null) properties.id.set(value);
+        else store.setId(row, value);
+    }
+    public StringProperty idProperty() {
+        Properties p = properties();
+        if (p.id == null) {
+            p.id = new SimpleStringProperty(this, "id", getId()) {
+                @Override protected void invalidated() { store.setId(row, get()); }
+            };
+        }
+        return p.id;
+    }
 
     // Image URL
-    public String getImageUrl() { return imageUrl.get(); }
-    public void setImageUrl(String value) { imageUrl.set(value); }
-    public StringProperty imageUrlProperty() { return imageUrl; }
+    public String getImageUrl() { return store.getImageUrl(row); }
+    public void setImageUrl(String value) {
+        if (properties != null && properties.imageUrl != null) properties.imageUrl.set(value);
+        else store.setImageUrl(row, value);
+    }
+    public StringProperty imageUrlProperty() {
+        Properties p = properties();
+        if (p.imageUrl == null) {
+            p.imageUrl = new SimpleStringProperty(this, "imageUrl", getImageUrl()) {
+                @Override protected void invalidated() { store.setImageUrl(row, get()); }
+            };
+        }
+        return p.imageUrl;
+    }
 
     // Product Name
-    public String getProductName() { return productName.get(); }
-    public void setProductName(String value) { productName.set(value); }
-    public StringProperty productNameProperty() { return productName; }
+    public String getProductName() { return store.getProductName(row); }
+    public void setProductName(String value) {
+        if (properties != null && properties.productName != null) properties.productName.set(value);
+        else store.setProductName(row, value);
+    }
+    public StringProperty productNameProperty() {
+        Properties p = properties();
+        if (p.productName == null) {
+            p.productName = new SimpleStringProperty(this, "productName", getProductName()) {
+                @Override protected void invalidated() { store.setProductName(row, get()); }
+            };
+        }
+        return p.productName;
+    }
 
     // SKU
-    public String getSku() { return sku.get(); }
-    public void setSku(String value) { sku.set(value); }
-    public StringProperty skuProperty() { return sku; }
+    public String getSku() { return store.getSku(row); }
+    public void setSku(String value) {
+        if (properties != null && properties.sku != null) properties.sku.set(value);
+        else store.setSku(row, value);
+    }
+    public StringProperty skuProperty() {
+        Properties p = properties();
+        if (p.sku == null) {
+            p.sku = new SimpleStringProperty(this, "sku", getSku()) {
+                @Override protected void invalidated() { store.setSku(row, get()); }
+            };
+        }
+        return p.sku;
+    }
 
     // Inventory Level
-    public int getInventoryLevel() { return inventoryLevel.get(); }
-    public void setInventoryLevel(int value) { inventoryLevel.set(value); }
-    public IntegerProperty inventoryLevelProperty() { return inventoryLevel; }
+    public int getInventoryLevel() { return store.getInventoryLevel(row); }
+    public void setInventoryLevel(int value) {
+        if (properties != null && properties.inventoryLevel != null) properties.inventoryLevel.set(value);
+        else store.setInventoryLevel(row, value);
+    }
+    public IntegerProperty inventoryLevelProperty() {
+        Properties p = properties();
+        if (p.inventoryLevel == null) {
+            p.inventoryLevel = new SimpleIntegerProperty(this, "inventoryLevel", getInventoryLevel()) {
+                @Override protected void invalidated() { store.setInventoryLevel(row, get()); }
+            };
+        }
+        return p.inventoryLevel;
+    }
+
+    /** The total across all locations, whichever level is shown. */
+    public int getTotalInventory() { return store.getTotal(row); }
+
+    /**
+     * The quantity at one location, or the total for {@link Locations#ALL}. A row
+     * without per-location quantities has none at any single location.
+     */
+    public int getInventoryAt(int location) {
+        if (location == Locations.ALL) {
+            return getTotalInventory();
+        }
+        int[] levels = store.getLocationLevels(row);
+        return levels != null ? LocationLevels.at(levels, location) : 0;
+    }
+
+    /** The packed per-location quantities, see {@link LocationLevels}; null if not known. Not to be modified. */
+    public int[] getLocationLevels() { return store.getLocationLevels(row); }
+
+    /**
+     * Replaces the per-location quantities and shows their total. Rows in a
+     * {@link ProductList} are updated through the list, which keeps the location it
+     * shows.
+     */
+    public void setLocationLevels(int[] levels) {
+        store.setLocationLevels(row, levels);
+        setInventoryLevel(store.getTotal(row));
+    }
+
+    /**
+     * Sets the per-location quantities and their total, or only the total when they
+     * are null, leaving the shown level alone.
+     */
+    void setStock(int[] levels, int total) {
+        store.setLocationLevels(row, levels);
+        if (levels == null) {
+            store.setTotal(row, total);
+        }
+    }
 
     // Inventory Item ID
-    public String getInventoryItemId() { return inventoryItemId.get(); }
-    public void setInventoryItemId(String value) { inventoryItemId.set(value); }
-    public StringProperty inventoryItemIdProperty() { return inventoryItemId; }
+    public String getInventoryItemId() { return store.getInventoryItemId(row); }
+    public void setInventoryItemId(String value) {
+        if (properties != null && properties.inventoryItemId != null) properties.inventoryItemId.set(value);
+        else store.setInventoryItemId(row, value);
+    }
+    public StringProperty inventoryItemIdProperty() {
+        Properties p = properties();
+        if (p.inventoryItemId == null) {
+            p.inventoryItemId = new SimpleStringProperty(this, "inventoryItemId", getInventoryItemId()) {
+                @Override protected void invalidated() { store.setInventoryItemId(row, get()); }
+            };
+        }
+        return p.inventoryItemId;
+    }
+
+    long idNumber() { return store.getIdNumber(row); }
+
+    long inventoryItemIdNumber() { return store.getInventoryItemIdNumber(row); }
+
+    /** Groups variants of one product: the GID number where there is one, else the ID string. */
+    Object productKey() {
+        long id = idNumber();
+        return id >= 0 ? (Object) id : getId();
+    }
+
+    private Properties properties() {
+        if (properties == null) {
+            properties = new Properties();
+        }
+        return properties;
+    }
+
+    /** The properties handed out so far; most rows never get any. */
+    private static final class Properties {
+        StringProperty id;
+        StringProperty imageUrl;
+        StringProperty productName;
+        StringProperty sku;
+        IntegerProperty inventoryLevel;
+        StringProperty inventoryItemId;
+    }
 }
@@ -0,0 +1,79 @@
+package com.inventoryflow.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variant rows grouped by product, in the order each product first appears, with
+ * every product's total inventory computed up front. Grouping is one pass over the
+ * rows; a changed inventory level only needs its own group's total recomputed.
+ */
+public final class ProductGroups {
+
+    /** The variants of one product. */
+    public static final class Group {
+        private final List<Product> variants = new ArrayList<>(1);
+        private int totalInventory;
+
+        /** The first variant, which stands in for the product's title and image. */
+        public Product getProduct() {
+            return variants.get(0);
+        }
+
+        public List<Product> getVariants() {
+            return Collections.unmodifiableList(variants);
+        }
+
+        public int getTotalInventory() {
+            return totalInventory;
+        }
+
+        /**
+         * Re-adds the variants' inventory levels after one of them changed.
+         */
+        public void recomputeTotal() {
+            int total = 0;
+            for (Product variant : variants) {
+                total += variant.getInventoryLevel();
+            }
+            totalInventory = total;
+        }
+    }
+
+    private final List<Group> groups = new ArrayList<>();
+    private final Map<Object, Group> byProduct = new HashMap<>();
+
+    private ProductGroups() {
+    }
+
+    public static ProductGroups of(List<? extends Product> rows) {
+        ProductGroups grouped = new ProductGroups();
+        for (Product row : rows) {
+            Object key = row.productKey();
+            Group group = grouped.byProduct.get(key);
+            if (group == null) {
+                group = new Group();
+                grouped.byProduct.put(key, group);
+                grouped.groups.add(group);
+            }
+            group.variants.add(row);
+            group.totalInventory += row.getInventoryLevel();
+        }
+        return grouped;
+    }
+
+    public List<Group> getGroups() {
+        return Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * Returns the group a variant was sorted into, or null if it is not one of the
+     * grouped rows' products.
+     */
+    public Group groupOf(Product variant) {
+        return byProduct.get(variant.productKey());
+    }
+}
@@ -0,0 +1,480 @@
+package com.inventoryflow.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * The dashboard's product rows, keyed by inventory item ID so sync results can be
+ * merged into the rows already on screen. A merge edits matching products in place,
+ * appends new ones and removes vanished ones, and reports all of it as a single
+ * change; rows edited in place are reported as updates, which filtered views
+ * re-test without the table rebuilding its cells. The cost of a merge follows the
+ * number of incoming rows, not the size of the list.
+ *
+ * <p>The list keeps trackers such as its {@link StockSummary} up to date as rows change.
+ *
+ * <p>The level each row shows is either its total or its quantity at one location,
+ * as picked with {@link #showLocation}. Switching reads the stored totals and
+ * per-location quantities and reports the rows whose level moved as updates, so
+ * filters, sorting and trackers follow without a sync or new row objects.
+ *
+ * <p>Rows without an inventory item ID can't be matched, so they are always added
+ * as new rows and only removed by {@link #removeStale()} or a product replacement.
+ */
+public final class ProductList extends ModifiableObservableListBase<Product> {
+
+    private static final class Entry {
+        final Product product;
+        int index;
+        // The merge that last touched the row
+        int stamp;
+
+        Entry(Product product, int index, int stamp) {
+            this.product = product;
+            this.index = index;
+            this.stamp = stamp;
+        }
+    }
+
+    private final List<Entry> rows = new ArrayList<>();
+    private final Map<Object, Entry> byInventoryItem = new HashMap<>();
+    private final Map<Object, List<Entry>> byProduct = new HashMap<>();
+    private final StockSummary stockSummary = new StockSummary();
+    private final List<RowTracker> trackers = new ArrayList<>(List.of(stockSummary));
+    private int stamp;
+    private int refreshStamp;
+    private int location = Locations.ALL;
+
+    public ProductList() {
+        // Registered first, so trackers are current when other listeners run
+        addListener((ListChangeListener<Product>) change -> {
+            for (RowTracker tracker : trackers) {
+                tracker.publish();
+            }
+        });
+    }
+
+    @Override
+    public Product get(int index) {
+        return rows.get(index).product;
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    public StockSummary getStockSummary() {
+        return stockSummary;
+    }
+
+    public Product findByInventoryItemId(String inventoryItemId) {
+        Entry entry = byInventoryItem.get(inventoryItemKey(inventoryItemId));
+        return entry == null ? null : entry.product;
+    }
+
+    /**
+     * Merges rows into the list: rows whose inventory item is already listed are
+     * copied into the existing product, the rest are appended.
+     */
+    public void merge(List<? extends Product> incoming) {
+        int current = ++stamp;
+        beginChange();
+        try {
+            addAll(upsert(incoming, current));
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Merges rows that each carry all variants of their product, as a delta sync
+     * delivers them: besides the {@link #merge} of the rows themselves, variants of
+     * those products that are no longer among them are removed.
+     */
+    public void replaceProducts(List<? extends Product> incoming) {
+        int current = ++stamp;
+        beginChange();
+        try {
+            List<Product> added = upsert(incoming, current);
+            BitSet gone = new BitSet(rows.size());
+            for (Product product : incoming) {
+                for (Entry entry : byProduct.getOrDefault(product.productKey(), List.of())) {
+                    if (entry.stamp != current) {
+                        gone.set(entry.index);
+                    }
+                }
+            }
+            removeRows(gone);
+            addAll(added);
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Starts a full refresh; rows not merged again before {@link #removeStale()}
+     * are removed by it.
+     */
+    public void startRefresh() {
+        refreshStamp = ++stamp;
+    }
+
+    public void removeStale() {
+        BitSet stale = new BitSet(rows.size());
+        for (Entry entry : rows) {
+            if (entry.stamp < refreshStamp) {
+                stale.set(entry.index);
+            }
+        }
+        removeRows(stale);
+    }
+
+    /**
+     * Sets the per-location quantities of listed rows by inventory item ID, packed as
+     * {@link LocationLevels}, and returns the number of rows that changed; IDs not in
+     * the list are ignored.
+     */
+    public int updateLocationLevels(Map<String, int[]> levels) {
+        int changed = 0;
+        beginChange();
+        try {
+            for (Map.Entry<String, int[]> level : levels.entrySet()) {
+                Entry entry = byInventoryItem.get(inventoryItemKey(level.getKey()));
+                if (entry != null && setStock(entry, level.getValue())) {
+                    changed++;
+                }
+            }
+        } finally {
+            endChange();
+        }
+        return changed;
+    }
+
+    /** The location whose quantities rows show, or {@link Locations#ALL} for totals. */
+    public int getLocation() {
+        return location;
+    }
+
+    /**
+     * Shows every row's quantity at one location, or its total for
+     * {@link Locations#ALL}, and returns the number of rows whose level changed.
+     */
+    public int showLocation(int location) {
+        this.location = location;
+        int changed = 0;
+        beginChange();
+        try {
+            for (Entry entry : rows) {
+                if (showLevel(entry.product)) {
+                    nextUpdate(entry.index);
+                    changed++;
+                }
+            }
+        } finally {
+            endChange();
+        }
+        return changed;
+    }
+
+    private boolean setStock(Entry entry, int[] levels) {
+        Product product = entry.product;
+        if (Arrays.equals(levels, product.getLocationLevels())) {
+            return false;
+        }
+        product.setStock(levels, LocationLevels.total(levels));
+        showLevel(product);
+        nextUpdate(entry.index);
+        return true;
+    }
+
+    /** Sets a listed row's level to the one for the shown location, telling trackers. */
+    private boolean showLevel(Product product) {
+        int oldLevel = product.getInventoryLevel();
+        int level = product.getInventoryAt(location);
+        if (level == oldLevel) {
+            return false;
+        }
+        product.setInventoryLevel(level);
+        levelChanged(product, oldLevel);
+        return true;
+    }
+
+    /**
+     * Applies matching rows in place and returns the ones to append, which are stamped
+     * as they are added.
+     */
+    private List<Product> upsert(List<? extends Product> incoming, int current) {
+        List<Product> added = new ArrayList<>();
+        Map<Object, Product> addedByKey = new HashMap<>();
+        for (Product product : incoming) {
+            Object key = inventoryItemKey(product);
+            Entry entry = key == null ? null : byInventoryItem.get(key);
+            if (entry != null) {
+                entry.stamp = current;
+                if (copy(product, entry)) {
+                    nextUpdate(entry.index);
+                }
+                continue;
+            }
+            Product pending = key == null ? null : addedByKey.get(key);
+            if (pending != null) {
+                copyFields(product, pending);
+            } else {
+                added.add(product);
+                if (key != null) {
+                    addedByKey.put(key, product);
+                }
+            }
+        }
+        return added;
+    }
+
+    private boolean copy(Product from, Entry entry) {
+        Product to = entry.product;
+        Object oldProduct = to.productKey();
+        if (!copyFields(from, to)) {
+            return false;
+        }
+        showLevel(to);
+        Object newProduct = to.productKey();
+        if (!Objects.equals(oldProduct, newProduct)) {
+            removeFromGroup(oldProduct, entry);
+            byProduct.computeIfAbsent(newProduct, k -> new ArrayList<>(1)).add(entry);
+        }
+        return true;
+    }
+
+    private static boolean copyFields(Product from, Product to) {
+        boolean changed = false;
+        if (!sameId(from, to)) {
+            to.setId(from.getId());
+            changed = true;
+        }
+        if (!Objects.equals(from.getImageUrl(), to.getImageUrl())) {
+            to.setImageUrl(from.getImageUrl());
+            changed = true;
+        }
+        if (!Objects.equals(from.getProductName(), to.getProductName())) {
+            to.setProductName(from.getProductName());
+            changed = true;
+        }
+        if (!Objects.equals(from.getSku(), to.getSku())) {
+            to.setSku(from.getSku());
+            changed = true;
+        }
+        if (from.getTotalInventory() != to.getTotalInventory()
+                || !Arrays.equals(from.getLocationLevels(), to.getLocationLevels())) {
+            // The shown level is left to the caller, which knows the location
+            to.setStock(from.getLocationLevels(), from.getTotalInventory());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean sameId(Product a, Product b) {
+        if (a.idNumber() >= 0 || b.idNumber() >= 0) {
+            return a.idNumber() == b.idNumber();
+        }
+        return Objects.equals(a.getId(), b.getId());
+    }
+
+    /**
+     * Removes the rows whose indexes are set as one change, in a single pass over
+     * the list. Each run of adjacent rows is reported as its own removal, so views
+     * and trackers only handle the rows that went away, however scattered.
+     */
+    private void removeRows(BitSet doomed) {
+        if (doomed.isEmpty()) {
+            return;
+        }
+        int first = doomed.nextSetBit(0);
+        beginChange();
+        try {
+            // Runs go front to back, each at its index once the runs before it are
+            // gone, so the change builder appends them instead of shifting earlier ones
+            int removedBefore = 0;
+            for (int start = first; start >= 0; ) {
+                int end = doomed.nextClearBit(start);
+                List<Product> removed = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    removed.add(rows.get(i).product);
+                }
+                nextRemove(start - removedBefore, removed);
+                removedBefore += end - start;
+                start = doomed.nextSetBit(end);
+            }
+
+            int kept = first;
+            for (int i = first; i < rows.size(); i++) {
+                Entry entry = rows.get(i);
+                if (doomed.get(i)) {
+                    unindex(entry);
+                } else {
+                    entry.index = kept;
+                    rows.set(kept++, entry);
+                }
+            }
+            rows.subList(kept, rows.size()).clear();
+            modCount++;
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        BitSet range = new BitSet(toIndex);
+        range.set(fromIndex, toIndex);
+        removeRows(range);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Product> filter) {
+        BitSet doomed = new BitSet(rows.size());
+        for (Entry entry : rows) {
+            if (filter.test(entry.product)) {
+                doomed.set(entry.index);
+            }
+        }
+        removeRows(doomed);
+        return !doomed.isEmpty();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Set<Object> doomed = Collections.newSetFromMap(new IdentityHashMap<>());
+        doomed.addAll(c);
+        return removeIf(doomed::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Set<Object> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(c);
+        return removeIf(product -> !kept.contains(product));
+    }
+
+    @Override
+    protected void doAdd(int index, Product product) {
+        showLevelUntracked(product);
+        Entry entry = new Entry(product, index, stamp);
+        rows.add(index, entry);
+        renumberFrom(index + 1);
+        index(entry);
+    }
+
+    @Override
+    protected Product doSet(int index, Product product) {
+        Entry old = rows.get(index);
+        unindex(old);
+        showLevelUntracked(product);
+        Entry entry = new Entry(product, index, stamp);
+        rows.set(index, entry);
+        index(entry);
+        return old.product;
+    }
+
+    @Override
+    protected Product doRemove(int index) {
+        Entry entry = rows.remove(index);
+        renumberFrom(index);
+        unindex(entry);
+        return entry.product;
+    }
+
+    /** Sets an arriving row's level for the shown location before trackers see it. */
+    private void showLevelUntracked(Product product) {
+        int level = product.getInventoryAt(location);
+        if (level != product.getInventoryLevel()) {
+            product.setInventoryLevel(level);
+        }
+    }
+
+    private void renumberFrom(int index) {
+        for (int i = index; i < rows.size(); i++) {
+            rows.get(i).index = i;
+        }
+    }
+
+    /**
+     * Starts reporting changes to a tracker, after feeding it the current rows.
+     */
+    void addTracker(RowTracker tracker) {
+        for (Entry entry : rows) {
+            tracker.added(entry.product);
+        }
+        tracker.publish();
+        trackers.add(tracker);
+    }
+
+    void removeTracker(RowTracker tracker) {
+        trackers.remove(tracker);
+    }
+
+    private void levelChanged(Product product, int oldLevel) {
+        for (RowTracker tracker : trackers) {
+            tracker.levelChanged(product, oldLevel);
+        }
+    }
+
+    private void index(Entry entry) {
+        for (RowTracker tracker : trackers) {
+            tracker.added(entry.product);
+        }
+        Object key = inventoryItemKey(entry.product);
+        if (key != null) {
+            byInventoryItem.put(key, entry);
+        }
+        byProduct.computeIfAbsent(entry.product.productKey(), k -> new ArrayList<>(1)).add(entry);
+    }
+
+    private void unindex(Entry entry) {
+        for (RowTracker tracker : trackers) {
+            tracker.removed(entry.product);
+        }
+        Object key = inventoryItemKey(entry.product);
+        if (key != null) {
+            byInventoryItem.remove(key, entry);
+        }
+        removeFromGroup(entry.product.productKey(), entry);
+    }
+
+    private void removeFromGroup(Object productKey, Entry entry) {
+        List<Entry> group = byProduct.get(productKey);
+        if (group != null) {
+            group.remove(entry);
+            if (group.isEmpty()) {
+                byProduct.remove(productKey);
+            }
+        }
+    }
+
+    /** Inventory item GIDs are keyed by their number, anything else by the string; null if unkeyed. */
+    private static Object inventoryItemKey(Product product) {
+        long id = product.inventoryItemIdNumber();
+        return id >= 0 ? (Object) id : emptyToNull(product.getInventoryItemId());
+    }
+
+    private static Object inventoryItemKey(String inventoryItemId) {
+        long id = ShopifyGid.parse(ShopifyGid.INVENTORY_ITEM, inventoryItemId);
+        return id >= 0 ? (Object) id : emptyToNull(inventoryItemId);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,299 @@
+package com.inventoryflow.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar storage for variant rows: one array per field, with inventory levels
+ * kept as primitive ints. Rows are appended in batches (a sync page, a cache load)
+ * and handed out as {@link Product} views, so a row costs a slot in each column
+ * plus a small view object instead of six JavaFX properties.
+ *
+ * <p>Each row keeps two levels: the total across all locations, and the level shown,
+ * which a {@link ProductList} sets to the quantity at one location when asked to.
+ * Per-location quantities are one packed {@link LocationLevels} array per row, in a
+ * column allocated once a row has them.
+ *
+ * <p>Product and inventory item GIDs are kept as their numeric part and expanded
+ * again when read; IDs in any other form go to a fallback column that is only
+ * allocated once one shows up. Consecutive variants of a product share one title
+ * and image string even when the caller passed separate copies.
+ *
+ * <p>A store can also {@link #viewOf view} rows kept outside the heap. Their strings
+ * and per-location quantities are only read when first asked for, and a changed
+ * value is kept in the store's own column from then on, leaving the source as it was.
+ *
+ * <p>A store is filled by one thread and then published along with its products;
+ * after that, rows are read and updated through their views on the FX thread. Work
+ * on other threads reads a {@link #copyOf copy} instead.
+ */
+public final class ProductStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    // Marks a slot whose value is still only in the source; compared by identity
+    private static final String UNREAD = new String();
+    private static final int[] UNREAD_LEVELS = new int[0];
+
+    private long[] ids;
+    private String[] otherIds;
+    private String[] imageUrls;
+    private String[] productNames;
+    private String[] skus;
+    private long[] inventoryItemIds;
+    private String[] otherInventoryItemIds;
+    private int[] inventoryLevels;
+    private int[] totals;
+    private int[][] locationLevels;
+    private int size;
+    private StoredRows source;
+
+    public ProductStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ProductStore(int capacity) {
+        int initial = Math.max(capacity, 1);
+        ids = new long[initial];
+        imageUrls = new String[initial];
+        productNames = new String[initial];
+        skus = new String[initial];
+        inventoryItemIds = new long[initial];
+        inventoryLevels = new int[initial];
+        totals = new int[initial];
+    }
+
+    /**
+     * Appends a row and returns the product viewing it.
+     */
+    public Product add(String id, String imageUrl, String productName, String sku,
+                       int inventoryLevel, String inventoryItemId) {
+        return new Product(this, append(id, imageUrl, productName, sku, inventoryLevel, inventoryItemId));
+    }
+
+    /**
+     * Appends a row with per-location quantities, as packed by {@link LocationLevels};
+     * its level is their total.
+     */
+    public Product add(String id, String imageUrl, String productName, String sku,
+                       int[] locationLevels, String inventoryItemId) {
+        int row = append(id, imageUrl, productName, sku, LocationLevels.total(locationLevels), inventoryItemId);
+        setLocationLevels(row, locationLevels);
+        return new Product(this, row);
+    }
+
+    /**
+     * Returns products viewing rows kept outside the heap. IDs and totals are copied
+     * up front, since a list keys and counts every row; names, SKUs, image URLs and
+     * per-location quantities are read from the source the first time each is asked
+     * for, so rows that are never shown or searched are never decoded.
+     */
+    public static List<Product> viewOf(StoredRows rows) {
+        int count = rows.size();
+        ProductStore store = new ProductStore(count);
+        store.source = rows;
+        Arrays.fill(store.imageUrls, 0, count, UNREAD);
+        Arrays.fill(store.productNames, 0, count, UNREAD);
+        Arrays.fill(store.skus, 0, count, UNREAD);
+        store.locationLevels = new int[store.ids.length][];
+        Arrays.fill(store.locationLevels, 0, count, UNREAD_LEVELS);
+        List<Product> products = new ArrayList<>(count);
+        for (int row = 0; row < count; row++) {
+            store.ids[row] = rows.getIdNumber(row);
+            if (store.ids[row] < 0) {
+                store.setId(row, rows.getId(row));
+            }
+            store.inventoryItemIds[row] = rows.getInventoryItemIdNumber(row);
+            if (store.inventoryItemIds[row] < 0) {
+                store.setInventoryItemId(row, rows.getInventoryItemId(row));
+            }
+            store.inventoryLevels[row] = rows.getTotal(row);
+            store.totals[row] = rows.getTotal(row);
+            products.add(new Product(store, row));
+        }
+        store.size = count;
+        return products;
+    }
+
+    /**
+     * Copies rows into a new store that only the caller holds, so another thread can
+     * read them while the FX thread keeps updating the originals. Each copy keeps its
+     * row's total and per-location quantities, and shows the total.
+     */
+    public static List<Product> copyOf(List<Product> rows) {
+        ProductStore copy = new ProductStore(rows.size());
+        List<Product> copies = new ArrayList<>(rows.size());
+        for (Product product : rows) {
+            copies.add(new Product(copy, product.copyTo(copy)));
+        }
+        return copies;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int append(String id, String imageUrl, String productName, String sku,
+               int inventoryLevel, String inventoryItemId) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        if (row > 0) {
+            imageUrl = shared(imageUrl, imageUrls[row - 1]);
+            productName = shared(productName, productNames[row - 1]);
+        }
+        setId(row, id);
+        imageUrls[row] = imageUrl;
+        productNames[row] = productName;
+        skus[row] = sku;
+        inventoryLevels[row] = inventoryLevel;
+        totals[row] = inventoryLevel;
+        setInventoryItemId(row, inventoryItemId);
+        return row;
+    }
+
+    /** Appends a copy of another store's row, without expanding its IDs. */
+    int appendCopy(ProductStore from, int row) {
+        if (size == ids.length) {
+            grow();
+        }
+        int to = size++;
+        ids[to] = from.ids[row];
+        if (ids[to] < 0) {
+            if (otherIds == null) {
+                otherIds = new String[ids.length];
+            }
+            otherIds[to] = from.otherIds[row];
+        }
+        inventoryItemIds[to] = from.inventoryItemIds[row];
+        if (inventoryItemIds[to] < 0) {
+            if (otherInventoryItemIds == null) {
+                otherInventoryItemIds = new String[inventoryItemIds.length];
+            }
+            otherInventoryItemIds[to] = from.otherInventoryItemIds[row];
+        }
+        imageUrls[to] = from.getImageUrl(row);
+        productNames[to] = from.getProductName(row);
+        skus[to] = from.getSku(row);
+        inventoryLevels[to] = from.totals[row];
+        totals[to] = from.totals[row];
+        // Level arrays are never changed once built, so the copy can share them
+        setLocationLevels(to, from.getLocationLevels(row));
+        return to;
+    }
+
+    private static String shared(String value, String previous) {
+        return value != null && previous != UNREAD && value.equals(previous) ? previous : value;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        imageUrls = Arrays.copyOf(imageUrls, capacity);
+        productNames = Arrays.copyOf(productNames, capacity);
+        skus = Arrays.copyOf(skus, capacity);
+        inventoryItemIds = Arrays.copyOf(inventoryItemIds, capacity);
+        inventoryLevels = Arrays.copyOf(inventoryLevels, capacity);
+        totals = Arrays.copyOf(totals, capacity);
+        if (locationLevels != null) {
+            locationLevels = Arrays.copyOf(locationLevels, capacity);
+        }
+        if (otherIds != null) {
+            otherIds = Arrays.copyOf(otherIds, capacity);
+        }
+        if (otherInventoryItemIds != null) {
+            otherInventoryItemIds = Arrays.copyOf(otherInventoryItemIds, capacity);
+        }
+    }
+
+    String getId(int row) {
+        long id = ids[row];
+        return id >= 0 ? ShopifyGid.format(ShopifyGid.PRODUCT, id) : otherIds[row];
+    }
+
+    void setId(int row, String value) {
+        long id = ShopifyGid.parse(ShopifyGid.PRODUCT, value);
+        ids[row] = id;
+        if (id < 0) {
+            if (otherIds == null) {
+                otherIds = new String[ids.length];
+            }
+            otherIds[row] = value;
+        } else if (otherIds != null) {
+            otherIds[row] = null;
+        }
+    }
+
+    /** The numeric part of the product GID, or -1 if the ID is not a product GID. */
+    long getIdNumber(int row) { return ids[row]; }
+
+    String getImageUrl(int row) {
+        String value = imageUrls[row];
+        return value != UNREAD ? value : (imageUrls[row] = source.getImageUrl(row));
+    }
+    void setImageUrl(int row, String value) { imageUrls[row] = value; }
+
+    String getProductName(int row) {
+        String value = productNames[row];
+        return value != UNREAD ? value : (productNames[row] = source.getProductName(row));
+    }
+    void setProductName(int row, String value) { productNames[row] = value; }
+
+    String getSku(int row) {
+        String value = skus[row];
+        return value != UNREAD ? value : (skus[row] = source.getSku(row));
+    }
+    void setSku(int row, String value) { skus[row] = value; }
+
+    int getInventoryLevel(int row) { return inventoryLevels[row]; }
+    void setInventoryLevel(int row, int value) { inventoryLevels[row] = value; }
+
+    int getTotal(int row) { return totals[row]; }
+    void setTotal(int row, int value) { totals[row] = value; }
+
+    /** The row's packed per-location quantities, or null if it has none. */
+    int[] getLocationLevels(int row) {
+        if (locationLevels == null) {
+            return null;
+        }
+        int[] levels = locationLevels[row];
+        return levels != UNREAD_LEVELS ? levels : (locationLevels[row] = source.getLocationLevels(row));
+    }
+
+    /** Sets the per-location quantities, or clears them with null, and their total. */
+    void setLocationLevels(int row, int[] levels) {
+        if (levels == null) {
+            if (locationLevels != null) {
+                locationLevels[row] = null;
+            }
+            return;
+        }
+        if (locationLevels == null) {
+            locationLevels = new int[ids.length][];
+        }
+        locationLevels[row] = levels;
+        totals[row] = LocationLevels.total(levels);
+    }
+
+    /** The numeric part of the inventory item GID, or -1 if the ID is not one. */
+    long getInventoryItemIdNumber(int row) { return inventoryItemIds[row]; }
+
+    String getInventoryItemId(int row) {
+        long id = inventoryItemIds[row];
+        return id >= 0 ? ShopifyGid.format(ShopifyGid.INVENTORY_ITEM, id) : otherInventoryItemIds[row];
+    }
+
+    void setInventoryItemId(int row, String value) {
+        long id = ShopifyGid.parse(ShopifyGid.INVENTORY_ITEM, value);
+        inventoryItemIds[row] = id;
+        if (id < 0) {
+            if (otherInventoryItemIds == null) {
+                otherInventoryItemIds = new String[inventoryItemIds.length];
+            }
+            otherInventoryItemIds[row] = value;
+        } else if (otherInventoryItemIds != null) {
+            otherInventoryItemIds[row] = null;
+        }
+    }
+}
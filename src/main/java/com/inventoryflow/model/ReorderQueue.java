@@ -0,0 +1,164 @@
+package com.inventoryflow.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * The variants most in need of reordering: the ones with the lowest inventory
+ * levels below a threshold, lowest first, at most {@code limit} of them. Only rows
+ * below the threshold are kept, in a tree ordered by level, so a changed level moves
+ * one row in O(log n) and the shown rows are read off the front of the tree once per
+ * list change. The catalog is never sorted, and the queue stays current while a sync
+ * streams rows in.
+ */
+public final class ReorderQueue extends RowTracker {
+
+    public static final int DEFAULT_LIMIT = 50;
+
+    /** A row below the threshold, with the level it is filed under. */
+    private static final class Node {
+        final Product product;
+        final long order;
+        int level;
+
+        Node(Product product, long order) {
+            this.product = product;
+            this.order = order;
+        }
+    }
+
+    private static final Comparator<Node> LOWEST_FIRST = Comparator
+            .comparingInt((Node node) -> node.level)
+            .thenComparingLong(node -> node.order);
+
+    private final ProductList list;
+    private final TreeSet<Node> queue = new TreeSet<>(LOWEST_FIRST);
+    private final Map<Product, Node> nodes = new IdentityHashMap<>();
+    private final ObservableList<Product> top = FXCollections.observableArrayList();
+    private final ObservableList<Product> readOnlyTop = FXCollections.unmodifiableObservableList(top);
+    private final ReadOnlyIntegerWrapper belowThreshold = new ReadOnlyIntegerWrapper(this, "belowThreshold");
+    private int limit;
+    private int threshold;
+    private long nextOrder;
+    private boolean dirty;
+
+    /**
+     * Starts following a list.
+     *
+     * @param limit     how many rows to show
+     * @param threshold rows with a level below this are candidates
+     */
+    public ReorderQueue(ProductList list, int limit, int threshold) {
+        this.list = list;
+        this.limit = limit;
+        this.threshold = threshold;
+        list.addTracker(this);
+    }
+
+    /** The rows to reorder, lowest level first. */
+    public ObservableList<Product> getTop() {
+        return readOnlyTop;
+    }
+
+    /** How many rows are below the threshold, shown or not. */
+    public ReadOnlyIntegerProperty belowThresholdProperty() {
+        return belowThreshold.getReadOnlyProperty();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+        dirty = true;
+        publish();
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Changes the threshold. This is the one operation that rescans the list.
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+        queue.clear();
+        nodes.clear();
+        for (Product product : list) {
+            added(product);
+        }
+        dirty = true;
+        publish();
+    }
+
+    /** Stops following the list. */
+    public void dispose() {
+        list.removeTracker(this);
+    }
+
+    @Override
+    void added(Product product) {
+        int level = product.getInventoryLevel();
+        if (level < threshold && !nodes.containsKey(product)) {
+            Node node = new Node(product, nextOrder++);
+            node.level = level;
+            nodes.put(product, node);
+            queue.add(node);
+            dirty = true;
+        }
+    }
+
+    @Override
+    void removed(Product product) {
+        Node node = nodes.remove(product);
+        if (node != null) {
+            queue.remove(node);
+            dirty = true;
+        }
+    }
+
+    @Override
+    void levelChanged(Product product, int oldLevel) {
+        Node node = nodes.get(product);
+        if (node == null) {
+            added(product);
+            return;
+        }
+        // Take the node out under the level it was filed with before refiling it
+        queue.remove(node);
+        if (product.getInventoryLevel() < threshold) {
+            node.level = product.getInventoryLevel();
+            queue.add(node);
+        } else {
+            nodes.remove(product);
+        }
+        dirty = true;
+    }
+
+    @Override
+    void publish() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        List<Product> shown = new ArrayList<>(Math.min(limit, queue.size()));
+        Iterator<Node> lowest = queue.iterator();
+        while (shown.size() < limit && lowest.hasNext()) {
+            shown.add(lowest.next().product);
+        }
+        top.setAll(shown);
+        belowThreshold.set(queue.size());
+    }
+}
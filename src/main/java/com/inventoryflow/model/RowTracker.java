@@ -0,0 +1,18 @@
+package com.inventoryflow.model;
+
+/**
+ * Something kept up to date from the rows of a {@link ProductList} without rescanning
+ * them. The list reports each row it adds or removes and each inventory level it
+ * changes, then publishes once per list change.
+ */
+abstract class RowTracker {
+
+    abstract void added(Product product);
+
+    abstract void removed(Product product);
+
+    /** Called after the level was set, so the product already holds the new level. */
+    abstract void levelChanged(Product product, int oldLevel);
+
+    abstract void publish();
+}
@@ -0,0 +1,48 @@
+package com.inventoryflow.model;
+
+/**
+ * Converts Shopify global IDs such as {@code gid://shopify/Product/123} to and from
+ * their numeric part, so stored rows can keep a {@code long} instead of the string.
+ */
+public final class ShopifyGid {
+
+    public static final String PRODUCT = "Product";
+    public static final String INVENTORY_ITEM = "InventoryItem";
+
+    private static final String PREFIX = "gid://shopify/";
+
+    private ShopifyGid() {
+    }
+
+    /**
+     * Returns the numeric part of a GID of the given type, or -1 if the value is not
+     * one that {@link #format} would reproduce exactly.
+     */
+    public static long parse(String type, String gid) {
+        if (gid == null || !gid.startsWith(PREFIX) || !gid.startsWith(type, PREFIX.length())) {
+            return -1;
+        }
+        int start = PREFIX.length() + type.length() + 1;
+        int length = gid.length() - start;
+        if (length < 1 || length > 18 || gid.charAt(start - 1) != '/'
+                || (gid.charAt(start) == '0' && length > 1)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < gid.length(); i++) {
+            char c = gid.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Expands a numeric ID back into its GID.
+     */
+    public static String format(String type, long id) {
+        return PREFIX + type + "/" + id;
+    }
+}
@@ -0,0 +1,88 @@
+package com.inventoryflow.model;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+
+/**
+ * Stock counters for the rows of a {@link ProductList}: variants out of stock,
+ * variants low on stock, and units on hand. The list reports every row it adds or
+ * removes and every inventory level it changes, with the old value, so each change
+ * costs a constant amount and the rows are never rescanned. The properties are
+ * published once per list change, so a streaming sync moves them once per batch.
+ *
+ * <p>Only changes made through the list are seen; a level set directly on a listed
+ * product is not.
+ */
+public final class StockSummary extends RowTracker {
+
+    /** Levels below this, other than zero, count as low stock. */
+    public static final int LOW_STOCK_THRESHOLD = 10;
+
+    private final ReadOnlyIntegerWrapper outOfStock = new ReadOnlyIntegerWrapper(this, "outOfStock");
+    private final ReadOnlyIntegerWrapper lowStock = new ReadOnlyIntegerWrapper(this, "lowStock");
+    private final ReadOnlyLongWrapper unitsOnHand = new ReadOnlyLongWrapper(this, "unitsOnHand");
+    private int outOfStockCount;
+    private int lowStockCount;
+    private long units;
+
+    StockSummary() {
+    }
+
+    public static boolean isOutOfStock(int level) {
+        return level == 0;
+    }
+
+    /** Below the threshold but not zero; oversold (negative) levels are low too. */
+    public static boolean isLowStock(int level) {
+        return level != 0 && level < LOW_STOCK_THRESHOLD;
+    }
+
+    public ReadOnlyIntegerProperty outOfStockProperty() {
+        return outOfStock.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty lowStockProperty() {
+        return lowStock.getReadOnlyProperty();
+    }
+
+    /** The sum of all positive levels. */
+    public ReadOnlyLongProperty unitsOnHandProperty() {
+        return unitsOnHand.getReadOnlyProperty();
+    }
+
+    @Override
+    void added(Product product) {
+        count(product.getInventoryLevel(), 1);
+    }
+
+    @Override
+    void removed(Product product) {
+        count(product.getInventoryLevel(), -1);
+    }
+
+    @Override
+    void levelChanged(Product product, int oldLevel) {
+        count(oldLevel, -1);
+        count(product.getInventoryLevel(), 1);
+    }
+
+    private void count(int level, int sign) {
+        if (isOutOfStock(level)) {
+            outOfStockCount += sign;
+        } else if (isLowStock(level)) {
+            lowStockCount += sign;
+        }
+        if (level > 0) {
+            units += (long) sign * level;
+        }
+    }
+
+    @Override
+    void publish() {
+        outOfStock.set(outOfStockCount);
+        lowStock.set(lowStockCount);
+        unitsOnHand.set(units);
+    }
+}
@@ -0,0 +1,33 @@
+package com.inventoryflow.model;
+
+/**
+ * Read-only variant rows kept outside the heap, such as a catalog snapshot file,
+ * that a {@link ProductStore} can be {@link ProductStore#viewOf backed by}. GIDs
+ * come as their numeric part, so rows can be keyed without reading any strings.
+ */
+public interface StoredRows {
+
+    int size();
+
+    /** The numeric part of the product GID, or -1 if the ID is not a product GID. */
+    long getIdNumber(int row);
+
+    String getId(int row);
+
+    String getImageUrl(int row);
+
+    String getProductName(int row);
+
+    String getSku(int row);
+
+    /** The numeric part of the inventory item GID, or -1 if the ID is not one. */
+    long getInventoryItemIdNumber(int row);
+
+    String getInventoryItemId(int row);
+
+    /** The total across all locations. */
+    int getTotal(int row);
+
+    /** The packed per-location quantities, see {@link LocationLevels}; null if not known. */
+    int[] getLocationLevels(int row);
+}
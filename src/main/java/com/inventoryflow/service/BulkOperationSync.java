@@ -0,0 +1,396 @@
+package com.inventoryflow.service;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+
+/**
+ * Sync engine built on Shopify's Bulk Operations API.
+ * Submits the whole catalog query as one bulk operation, waits for Shopify to
+ * finish it, then streams the JSONL result line by line so only the product
+ * currently being reassembled is held in memory.
+ *
+ * <p>Waiting on Shopify is bounded: an operation still not finished after the
+ * maximum wait is canceled and reported as {@link TimedOutException}, and
+ * {@link #cancel()} stops a wait early, for instance on logout.
+ */
+class BulkOperationSync {
+
+    private static final int ROWS_PER_PAGE = 250;
+    private static final long INITIAL_POLL_MILLIS = 500;
+    private static final long MAX_POLL_MILLIS = 5000;
+    static final Duration DEFAULT_MAX_WAIT = Duration.ofMinutes(30);
+
+    private static final String BULK_PRODUCTS_QUERY = """
+            {
+              products {
+                edges {
+                  node {
+                    id
+                    title
+                    featuredImage {
+                      url
+                    }
+                    variants {
+                      edges {
+                        node {
+                          id
+                          sku
+                          inventoryItem {
+                            id
+                            inventoryLevels {
+                              edges {
+                                node {
+                                  available
+                                  location {
+                                    id
+                                    name
+                                  }
+                                }
+                              }
+                            }
+                          }
+                        }
+                      }
+                    }
+                  }
+                }
+              }
+            }
+            """;
+
+    private final ShopifyService service;
+    private final HttpClient httpClient;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private volatile Duration maxWait = DEFAULT_MAX_WAIT;
+
+    BulkOperationSync(ShopifyService service, HttpClient httpClient) {
+        this.service = service;
+        this.httpClient = httpClient;
+    }
+
+    /** Sets how long to wait for Shopify to finish an operation before giving up on it. */
+    void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Stops any current and future wait for an operation, which is then canceled on
+     * Shopify's side and reported as a {@link CancellationException}.
+     */
+    void cancel() {
+        cancelled.countDown();
+    }
+
+    /**
+     * Runs a bulk export of the catalog, handing rows to the consumer in pages.
+     * Nothing is delivered before the operation completes, so a
+     * {@link TimedOutException} always means no rows were handed over.
+     *
+     * @return the total number of products delivered
+     */
+    int run(Consumer<List<Product>> pageConsumer) {
+        try {
+            String operationId = submit();
+            String resultUrl = awaitCompletion(operationId);
+            if (resultUrl == null) {
+                // Shopify omits the URL when the operation matched no objects
+                return 0;
+            }
+            return download(resultUrl, pageConsumer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Bulk sync interrupted", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Bulk sync failed: " + e.getMessage(), e);
+        }
+    }
+
+    private String submit() throws Exception {
+        String mutation = """
+                mutation {
+                  bulkOperationRunQuery(query: \"""
+                %s\""") {
+                    bulkOperation {
+                      id
+                      status
+                    }
+                    userErrors {
+                      field
+                      message
+                    }
+                  }
+                }
+                """.formatted(BULK_PRODUCTS_QUERY);
+
+        JsonObject result = service.executeGraphQL(mutation)
+                .getAsJsonObject("bulkOperationRunQuery");
+
+        JsonArray userErrors = result.getAsJsonArray("userErrors");
+        if (userErrors != null && userErrors.size() > 0) {
+            String errorMsg = userErrors.get(0).getAsJsonObject().get("message").getAsString();
+            throw new RuntimeException("Shopify API error: " + errorMsg);
+        }
+
+        return result.getAsJsonObject("bulkOperation").get("id").getAsString();
+    }
+
+    private String awaitCompletion(String operationId) throws Exception {
+        try {
+            return poll(operationId);
+        } catch (TimedOutException | CancellationException | InterruptedException e) {
+            cancelOperation(operationId);
+            throw e;
+        }
+    }
+
+    private String poll(String operationId) throws Exception {
+        String query = "{ currentBulkOperation { id status errorCode url } }";
+        long pollMillis = INITIAL_POLL_MILLIS;
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        while (true) {
+            if (cancelled.getCount() == 0) {
+                throw new CancellationException("Bulk sync canceled");
+            }
+            JsonElement current = service.executeGraphQL(query)
+                    .get("currentBulkOperation");
+            if (current == null || current.isJsonNull()) {
+                throw new RuntimeException("Bulk operation " + operationId + " disappeared");
+            }
+
+            JsonObject operation = current.getAsJsonObject();
+            if (!operationId.equals(operation.get("id").getAsString())) {
+                throw new RuntimeException("Another bulk operation replaced " + operationId);
+            }
+
+            String status = operation.get("status").getAsString();
+            switch (status) {
+                case "COMPLETED":
+                    JsonElement url = operation.get("url");
+                    return url == null || url.isJsonNull() ? null : url.getAsString();
+                case "FAILED":
+                case "CANCELED":
+                case "EXPIRED":
+                    JsonElement errorCode = operation.get("errorCode");
+                    String reason = errorCode == null || errorCode.isJsonNull()
+                            ? status : status + " (" + errorCode.getAsString() + ")";
+                    throw new RuntimeException("Bulk operation " + reason);
+                default:
+                    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMillis <= 0) {
+                        String waited = maxWait.toMinutes() > 0
+                                ? maxWait.toMinutes() + " minutes" : maxWait.toMillis() + " ms";
+                        throw new TimedOutException("Bulk operation still " + status + " after " + waited);
+                    }
+                    // Returns early once canceled; the next turn reports it
+                    cancelled.await(Math.min(pollMillis, remainingMillis), TimeUnit.MILLISECONDS);
+                    pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Asks Shopify to cancel an operation that is no longer waited on, so it stops
+     * holding the store's single bulk query slot. Failures are ignored; Shopify
+     * expires abandoned operations on its own.
+     */
+    private void cancelOperation(String operationId) {
+        String mutation = """
+                mutation {
+                  bulkOperationCancel(id: "%s") {
+                    bulkOperation {
+                      status
+                    }
+                    userErrors {
+                      message
+                    }
+                  }
+                }
+                """.formatted(operationId);
+        try {
+            service.executeGraphQL(mutation);
+        } catch (Exception e) {
+            // Best effort only
+        }
+    }
+
+    private int download(String resultUrl, Consumer<List<Product>> pageConsumer) throws Exception {
+        // The result URL is a pre-signed storage link, so the access token must not be sent
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(resultUrl))
+                .timeout(Duration.ofMinutes(10))
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> response = httpClient.send(request,
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Bulk result download failed with status: "
+                        + response.statusCode());
+            }
+
+            JsonlAssembler assembler = new JsonlAssembler(pageConsumer);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    assembler.accept(JsonParser.parseString(line).getAsJsonObject());
+                }
+            }
+            return assembler.finish();
+        }
+    }
+
+    /**
+     * Rebuilds variant rows from the flattened JSONL output. Each object names its
+     * parent through {@code __parentId}, and Shopify writes every child after its
+     * parent and before the next top-level product, so a product is complete as
+     * soon as the next one starts.
+     */
+    private static class JsonlAssembler {
+        private final Consumer<List<Product>> pageConsumer;
+        private List<Product> page = new ArrayList<>();
+        private ProductStore store = new ProductStore(ROWS_PER_PAGE);
+        private int total;
+
+        private String productId;
+        private String productName;
+        private String imageUrl;
+        private final Map<String, VariantRow> variants = new LinkedHashMap<>();
+        private final Map<String, VariantRow> variantsByInventoryItem = new HashMap<>();
+
+        JsonlAssembler(Consumer<List<Product>> pageConsumer) {
+            this.pageConsumer = pageConsumer;
+        }
+
+        void accept(JsonObject line) {
+            JsonElement parent = line.get("__parentId");
+            if (parent == null) {
+                startProduct(line);
+            } else if (parent.getAsString().equals(productId)) {
+                addVariant(line);
+            } else {
+                addInventoryLevel(parent.getAsString(), line);
+            }
+        }
+
+        int finish() {
+            flushProduct();
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+            }
+            return total;
+        }
+
+        private void startProduct(JsonObject line) {
+            flushProduct();
+            productId = line.get("id").getAsString();
+            productName = line.get("title").getAsString();
+            imageUrl = "";
+            if (line.has("featuredImage") && !line.get("featuredImage").isJsonNull()) {
+                imageUrl = line.getAsJsonObject("featuredImage").get("url").getAsString();
+            }
+        }
+
+        private void addVariant(JsonObject line) {
+            VariantRow variant = new VariantRow();
+            if (line.has("sku") && !line.get("sku").isJsonNull()) {
+                variant.sku = line.get("sku").getAsString();
+            }
+            if (line.has("inventoryItem") && !line.get("inventoryItem").isJsonNull()) {
+                variant.inventoryItemId = line.getAsJsonObject("inventoryItem")
+                        .get("id").getAsString();
+                variantsByInventoryItem.put(variant.inventoryItemId, variant);
+            }
+            variants.put(line.get("id").getAsString(), variant);
+        }
+
+        private void addInventoryLevel(String parentId, JsonObject line) {
+            // Levels hang off the inventory item, but accept the variant as parent too
+            VariantRow variant = variants.get(parentId);
+            if (variant == null) {
+                variant = variantsByInventoryItem.get(parentId);
+            }
+            JsonElement location = line.get("location");
+            if (variant == null || location == null || !location.isJsonObject()) {
+                return;
+            }
+            int available = line.has("available") && !line.get("available").isJsonNull()
+                    ? line.get("available").getAsInt() : 0;
+            JsonElement name = location.getAsJsonObject().get("name");
+            int index = Locations.getInstance().intern(location.getAsJsonObject().get("id").getAsString(),
+                    name != null && !name.isJsonNull() ? name.getAsString() : null);
+            variant.levels = LocationLevels.add(variant.levels, index, available);
+        }
+
+        private void flushProduct() {
+            if (productId == null) {
+                return;
+            }
+            for (VariantRow variant : variants.values()) {
+                page.add(store.add(
+                        productId,
+                        imageUrl,
+                        productName,
+                        variant.sku,
+                        variant.levels,
+                        variant.inventoryItemId
+                ));
+            }
+            total += variants.size();
+            variants.clear();
+            variantsByInventoryItem.clear();
+            productId = null;
+
+            if (page.size() >= ROWS_PER_PAGE) {
+                pageConsumer.accept(page);
+                page = new ArrayList<>();
+                store = new ProductStore(ROWS_PER_PAGE);
+            }
+        }
+    }
+
+    /** Thrown when an operation doesn't finish within the maximum wait. */
+    static final class TimedOutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TimedOutException(String message) {
+            super(message);
+        }
+    }
+
+    private static class VariantRow {
+        String sku = "";
+        String inventoryItemId = "";
+        int[] levels = LocationLevels.EMPTY;
+    }
+}
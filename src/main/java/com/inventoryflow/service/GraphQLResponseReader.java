@@ -0,0 +1,817 @@
+package com.inventoryflow.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+
+/**
+ * Streaming reader for paginated GraphQL responses.
+ * Walks the response once with a {@link JsonReader}, handing each connection node to
+ * a node reader and collecting errors, pageInfo and query cost along the way, so a
+ * page is never buffered as a String or built into a JSON tree.
+ */
+final class GraphQLResponseReader {
+
+    /** Reads one connection node, positioned at its opening brace. */
+    @FunctionalInterface
+    interface NodeReader {
+        void read(JsonReader in) throws IOException;
+    }
+
+    /** Pagination state of a connection read from a response. */
+    static final class ConnectionPage {
+        boolean hasNextPage;
+        String endCursor;
+        int nodeCount;
+    }
+
+    /**
+     * Nested connections that were cut off at their page size while reading a page,
+     * left for a follow-up query to complete.
+     */
+    static final class NestedPages {
+        final List<VariantContinuation> variants = new ArrayList<>();
+        final List<LevelContinuation> levels = new ArrayList<>();
+
+        boolean isEmpty() {
+            return variants.isEmpty() && levels.isEmpty();
+        }
+    }
+
+    /** The rest of a product's variants, starting after the given cursor. */
+    static final class VariantContinuation {
+        final String productId;
+        final String productName;
+        final String imageUrl;
+        final String cursor;
+
+        VariantContinuation(String productId, String productName, String imageUrl, String cursor) {
+            this.productId = productId;
+            this.productName = productName;
+            this.imageUrl = imageUrl;
+            this.cursor = cursor;
+        }
+
+        VariantContinuation after(String nextCursor) {
+            return new VariantContinuation(productId, productName, imageUrl, nextCursor);
+        }
+    }
+
+    /**
+     * The rest of an inventory item's levels, starting after the given cursor.
+     * Per-location quantities read from them are passed to {@code addLevels}.
+     */
+    static final class LevelContinuation {
+        final String inventoryItemId;
+        final String cursor;
+        final Consumer<int[]> addLevels;
+
+        LevelContinuation(String inventoryItemId, String cursor, Consumer<int[]> addLevels) {
+            this.inventoryItemId = inventoryItemId;
+            this.cursor = cursor;
+            this.addLevels = addLevels;
+        }
+
+        LevelContinuation after(String nextCursor) {
+            return new LevelContinuation(inventoryItemId, nextCursor, addLevels);
+        }
+    }
+
+    /** Reads the value of one aliased field in a response's data object. */
+    @FunctionalInterface
+    interface AliasReader {
+        void read(String alias, JsonReader in) throws IOException;
+    }
+
+    /**
+     * Everything besides data that the client acts on: whether data was returned,
+     * the first error, and the cost figures from {@code extensions.cost}.
+     * Cost fields stay negative when Shopify didn't report them.
+     */
+    static final class ResponseMeta {
+        boolean hasData;
+        String errorMessage;
+        String errorCode;
+        double requestedQueryCost = -1;
+        double actualQueryCost = -1;
+        double maximumAvailable = -1;
+        double currentlyAvailable = -1;
+        double restoreRate = -1;
+
+        boolean isThrottled() {
+            return "THROTTLED".equals(errorCode);
+        }
+    }
+
+    private GraphQLResponseReader() {
+    }
+
+    /**
+     * Reads the top-level connection with the given name from a response body,
+     * recording errors and cost into the given metadata.
+     */
+    static ConnectionPage readConnection(InputStream body, String connectionName,
+                                         NodeReader nodeReader, ResponseMeta meta) throws IOException {
+        ConnectionPage page = new ConnectionPage();
+        readResponse(body, meta, in -> readData(in, connectionName, nodeReader, page));
+        return page;
+    }
+
+    /**
+     * Reads a connection held by a top-level object, such as the inventory levels of a
+     * {@code location(id:)} lookup, recording errors and cost into the given metadata.
+     * A missing object reads as an empty last page.
+     */
+    static ConnectionPage readObjectConnection(InputStream body, String objectName, String connectionName,
+                                               NodeReader nodeReader, ResponseMeta meta) throws IOException {
+        ConnectionPage page = new ConnectionPage();
+        readResponse(body, meta, in -> {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(objectName) && in.peek() != JsonToken.NULL) {
+                    readData(in, connectionName, nodeReader, page);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        });
+        return page;
+    }
+
+    /**
+     * Reads only the pagination and metadata of a buffered response, leaving its nodes
+     * to be decoded elsewhere. The connection is read up to its pageInfo, so queries
+     * should request pageInfo before edges; the rest of the data object is passed over
+     * by matching brackets in the raw bytes, and only errors and extensions are parsed.
+     */
+    static ConnectionPage skimConnection(byte[] body, String connectionName,
+                                         ResponseMeta meta) throws IOException {
+        ConnectionPage page = new ConnectionPage();
+        int pos = skipWhitespace(body, 0);
+        pos = expect(body, pos, '{');
+        pos = skipWhitespace(body, pos);
+        if (pos < body.length && body[pos] == '}') {
+            return page;
+        }
+        while (true) {
+            if (pos >= body.length || body[pos] != '"') {
+                throw new IOException("Malformed response: expected a name at byte " + pos);
+            }
+            int nameEnd = skipValueBytes(body, pos);
+            String name = new String(body, pos + 1, nameEnd - pos - 2, StandardCharsets.UTF_8);
+            pos = skipWhitespace(body, expect(body, skipWhitespace(body, nameEnd), ':'));
+            int valueEnd = skipValueBytes(body, pos);
+            switch (name) {
+                case "data":
+                    if (body[pos] != 'n') {
+                        meta.hasData = true;
+                        readPageInfo(slice(body, pos, valueEnd), connectionName, page);
+                    }
+                    break;
+                case "errors":
+                    readFirstError(slice(body, pos, valueEnd), meta);
+                    break;
+                case "extensions":
+                    readExtensions(slice(body, pos, valueEnd), meta);
+                    break;
+                default:
+                    break;
+            }
+            pos = skipWhitespace(body, valueEnd);
+            if (pos < body.length && body[pos] == ',') {
+                pos = skipWhitespace(body, pos + 1);
+            } else {
+                expect(body, pos, '}');
+                return page;
+            }
+        }
+    }
+
+    /**
+     * Reads a small response's data object into a JSON tree, recording errors and
+     * cost into the given metadata. Returns null if the response had no data.
+     */
+    static JsonObject readTree(InputStream body, ResponseMeta meta) throws IOException {
+        JsonObject[] data = new JsonObject[1];
+        readResponse(body, meta, in -> data[0] = JsonParser.parseReader(in).getAsJsonObject());
+        return data[0];
+    }
+
+    /**
+     * Reads the result list of a {@code nodes(ids:)} lookup, handing each node to the
+     * node reader. IDs that no longer resolve come back as null and are skipped.
+     */
+    static void readNodes(InputStream body, ResponseMeta meta, NodeReader nodeReader) throws IOException {
+        readResponse(body, meta, in -> {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("nodes") || in.peek() == JsonToken.NULL) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        nodeReader.read(in);
+                    }
+                }
+                in.endArray();
+            }
+            in.endObject();
+        });
+    }
+
+    /**
+     * Reads a response whose data object holds one aliased field per batched lookup,
+     * handing each non-null value to the alias reader.
+     */
+    static void readAliases(InputStream body, ResponseMeta meta, AliasReader aliasReader) throws IOException {
+        readResponse(body, meta, in -> {
+            in.beginObject();
+            while (in.hasNext()) {
+                String alias = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else {
+                    aliasReader.read(alias, in);
+                }
+            }
+            in.endObject();
+        });
+    }
+
+    private static void readResponse(InputStream body, ResponseMeta meta,
+                                     NodeReader dataReader) throws IOException {
+        try (JsonReader in = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "data":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            meta.hasData = true;
+                            dataReader.read(in);
+                        }
+                        break;
+                    case "errors":
+                        readFirstError(in, meta);
+                        break;
+                    case "extensions":
+                        readExtensions(in, meta);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+    }
+
+    /**
+     * Reads a product node into one row per variant, keeping the available quantity
+     * at each of the variant's locations along with their total. Rows are appended to {@code store}; variant
+     * and level connections with more pages are recorded in {@code nested}.
+     */
+    static void readProductNode(JsonReader in, ProductStore store, List<Product> out,
+                                NestedPages nested) throws IOException {
+        String productId = null;
+        String productName = null;
+        String imageUrl = "";
+        List<VariantRow> variants = new ArrayList<>();
+        String variantsCursor = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    productId = in.nextString();
+                    break;
+                case "title":
+                    productName = in.nextString();
+                    break;
+                case "featuredImage":
+                    imageUrl = readImageUrl(in);
+                    break;
+                case "variants":
+                    variantsCursor = readNestedConnection(in, node -> variants.add(readVariantNode(node)));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        addRows(productId, productName, imageUrl, variants, store, out, nested);
+        if (variantsCursor != null) {
+            nested.variants.add(new VariantContinuation(productId, productName, imageUrl, variantsCursor));
+        }
+    }
+
+    /**
+     * Reads a follow-up page of a product's variants, positioned at the product node.
+     *
+     * @return the cursor of the next page, or null if this was the last
+     */
+    static String readVariantsPage(JsonReader in, VariantContinuation continuation, ProductStore store,
+                                   List<Product> out, NestedPages nested) throws IOException {
+        List<VariantRow> variants = new ArrayList<>();
+        String nextCursor = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("variants")) {
+                nextCursor = readNestedConnection(in, node -> variants.add(readVariantNode(node)));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        addRows(continuation.productId, continuation.productName, continuation.imageUrl,
+                variants, store, out, nested);
+        return nextCursor;
+    }
+
+    /**
+     * Reads a follow-up page of an inventory item's levels, positioned at the item node.
+     *
+     * @return the cursor of the next page, or null if this was the last
+     */
+    static String readLevelsPage(JsonReader in, LevelContinuation continuation) throws IOException {
+        VariantRow item = new VariantRow();
+        readInventoryItem(in, item);
+        continuation.addLevels.accept(item.levels);
+        return item.levelsCursor;
+    }
+
+    /**
+     * Reads an inventory item node into its ID and per-location quantities, packed as
+     * {@link LocationLevels}. A level connection with more pages is recorded in
+     * {@code nested}.
+     */
+    static void readInventoryItemNode(JsonReader in, Map<String, int[]> out,
+                                      NestedPages nested) throws IOException {
+        VariantRow item = new VariantRow();
+        readInventoryItem(in, item);
+        out.put(item.inventoryItemId, item.levels);
+        if (item.levelsCursor != null) {
+            String itemId = item.inventoryItemId;
+            nested.levels.add(new LevelContinuation(itemId, item.levelsCursor,
+                    more -> out.merge(itemId, more, LocationLevels::addAll)));
+        }
+    }
+
+    /** Reads a node's {@code id}, skipping any other fields. */
+    static String readId(JsonReader in) throws IOException {
+        String id = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("id") && in.peek() != JsonToken.NULL) {
+                id = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return id;
+    }
+
+    /** Reads the inventory item ID of an inventory level node, {@code item { id }}. */
+    static String readLevelItemId(JsonReader in) throws IOException {
+        String itemId = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("item") && in.peek() != JsonToken.NULL) {
+                itemId = readId(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return itemId;
+    }
+
+    private static void addRows(String productId, String productName, String imageUrl,
+                                List<VariantRow> variants, ProductStore store, List<Product> out,
+                                NestedPages nested) {
+        for (VariantRow variant : variants) {
+            Product row = store.add(
+                    productId,
+                    imageUrl,
+                    productName,
+                    variant.sku,
+                    variant.levels,
+                    variant.inventoryItemId
+            );
+            out.add(row);
+            if (variant.levelsCursor != null) {
+                nested.levels.add(new LevelContinuation(variant.inventoryItemId, variant.levelsCursor,
+                        more -> row.setLocationLevels(LocationLevels.addAll(row.getLocationLevels(), more))));
+            }
+        }
+    }
+
+    private static void readData(JsonReader in, String connectionName, NodeReader nodeReader,
+                                 ConnectionPage page) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals(connectionName) && in.peek() != JsonToken.NULL) {
+                readConnectionObject(in, nodeReader, page);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static void readConnectionObject(JsonReader in, NodeReader nodeReader,
+                                             ConnectionPage page) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "edges":
+                    readEdges(in, nodeReader, page);
+                    break;
+                case "pageInfo":
+                    readPageInfoObject(in, page);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * Reads a connection's pageInfo from a data object and stops there. Edges that come
+     * first are walked for their cursors, in case pageInfo has no endCursor.
+     */
+    private static void readPageInfo(JsonReader in, String connectionName,
+                                     ConnectionPage page) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals(connectionName) || in.peek() == JsonToken.NULL) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pageInfo":
+                        readPageInfoObject(in, page);
+                        if (page.endCursor != null || !page.hasNextPage) {
+                            return;
+                        }
+                        break;
+                    case "edges":
+                        readEdges(in, JsonReader::skipValue, page);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            return;
+        }
+    }
+
+    private static void readEdges(JsonReader in, NodeReader nodeReader, ConnectionPage page) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "cursor":
+                        page.endCursor = in.nextString();
+                        break;
+                    case "node":
+                        nodeReader.read(in);
+                        page.nodeCount++;
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+    }
+
+    private static void readPageInfoObject(JsonReader in, ConnectionPage page) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "hasNextPage":
+                    page.hasNextPage = in.nextBoolean();
+                    break;
+                case "endCursor":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        page.endCursor = in.nextString();
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static JsonReader slice(byte[] body, int from, int to) {
+        return new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(body, from, to - from), StandardCharsets.UTF_8));
+    }
+
+    private static int skipWhitespace(byte[] body, int pos) {
+        while (pos < body.length && (body[pos] == ' ' || body[pos] == '\n'
+                || body[pos] == '\r' || body[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int expect(byte[] body, int pos, char expected) throws IOException {
+        if (pos >= body.length || body[pos] != expected) {
+            throw new IOException("Malformed response: expected '" + expected + "' at byte " + pos);
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Returns the position just past the JSON value starting at {@code pos}, counting
+     * brackets outside strings without decoding anything.
+     */
+    private static int skipValueBytes(byte[] body, int pos) throws IOException {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = pos; i < body.length; i++) {
+            byte b = body[i];
+            if (inString) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    return i;
+                }
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            } else if (depth == 0 && (b == ',' || b == ' ' || b == '\n' || b == '\r' || b == '\t')) {
+                return i;
+            }
+        }
+        if (depth == 0 && !inString && body.length > pos) {
+            return body.length;
+        }
+        throw new IOException("Malformed response: value at byte " + pos + " is not closed");
+    }
+
+    private static void readFirstError(JsonReader in, ResponseMeta meta) throws IOException {
+        boolean first = true;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (!first || in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            first = false;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "message":
+                        meta.errorMessage = in.nextString();
+                        break;
+                    case "extensions":
+                        readErrorExtensions(in, meta);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+    }
+
+    private static void readErrorExtensions(JsonReader in, ResponseMeta meta) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "code":
+                    meta.errorCode = in.nextString();
+                    break;
+                case "cost":
+                    // MAX_COST_EXCEEDED reports the rejected query's cost here as a number
+                    if (in.peek() == JsonToken.NUMBER) {
+                        meta.requestedQueryCost = in.nextDouble();
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static void readExtensions(JsonReader in, ResponseMeta meta) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("cost") || in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "requestedQueryCost":
+                        meta.requestedQueryCost = in.nextDouble();
+                        break;
+                    case "actualQueryCost":
+                        if (in.peek() == JsonToken.NUMBER) {
+                            meta.actualQueryCost = in.nextDouble();
+                        } else {
+                            in.skipValue();
+                        }
+                        break;
+                    case "throttleStatus":
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            switch (in.nextName()) {
+                                case "maximumAvailable":
+                                    meta.maximumAvailable = in.nextDouble();
+                                    break;
+                                case "currentlyAvailable":
+                                    meta.currentlyAvailable = in.nextDouble();
+                                    break;
+                                case "restoreRate":
+                                    meta.restoreRate = in.nextDouble();
+                                    break;
+                                default:
+                                    in.skipValue();
+                            }
+                        }
+                        in.endObject();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endObject();
+    }
+
+    private static String readImageUrl(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return "";
+        }
+        String url = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("url") && in.peek() == JsonToken.STRING) {
+                url = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return url;
+    }
+
+    private static VariantRow readVariantNode(JsonReader in) throws IOException {
+        VariantRow variant = new VariantRow();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "sku":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        variant.sku = in.nextString();
+                    }
+                    break;
+                case "inventoryItem":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        readInventoryItem(in, variant);
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return variant;
+    }
+
+    private static void readInventoryItem(JsonReader in, VariantRow variant) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    variant.inventoryItemId = in.nextString();
+                    break;
+                case "inventoryLevels":
+                    variant.levelsCursor = readNestedConnection(in, level -> readLevel(level, variant));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /** Reads an inventory level into the variant's quantities; a level without a location is skipped. */
+    private static void readLevel(JsonReader in, VariantRow variant) throws IOException {
+        int available = 0;
+        String locationId = null;
+        String locationName = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "available":
+                    if (in.peek() == JsonToken.NUMBER) {
+                        available = in.nextInt();
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                case "location":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        break;
+                    }
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String field = in.nextName();
+                        if (field.equals("id")) {
+                            locationId = in.nextString();
+                        } else if (field.equals("name") && in.peek() == JsonToken.STRING) {
+                            locationName = in.nextString();
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        if (locationId != null) {
+            int location = Locations.getInstance().intern(locationId, locationName);
+            variant.levels = LocationLevels.add(variant.levels, location, available);
+        }
+    }
+
+    /**
+     * Reads the nodes of a nested connection.
+     *
+     * @return the cursor to continue from if the connection has more pages, otherwise null
+     */
+    private static String readNestedConnection(JsonReader in, NodeReader nodeReader) throws IOException {
+        ConnectionPage page = new ConnectionPage();
+        readConnectionObject(in, nodeReader, page);
+        return page.hasNextPage ? page.endCursor : null;
+    }
+
+    private static final class VariantRow {
+        String sku = "";
+        String inventoryItemId = "";
+        int[] levels = LocationLevels.EMPTY;
+        String levelsCursor;
+    }
+}
@@ -0,0 +1,145 @@
+package com.inventoryflow.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.service.GraphQLResponseReader.LevelContinuation;
+import com.inventoryflow.service.GraphQLResponseReader.NestedPages;
+import com.inventoryflow.service.GraphQLResponseReader.VariantContinuation;
+
+/**
+ * Follow-up stage for nested connections cut off by a page query. The page query
+ * asks for only a few variants per product and levels per item, which covers most
+ * catalogs cheaply; the rare product or item with more is completed here, with many
+ * continuations batched into one query as aliased node lookups.
+ */
+class NestedPageFetcher {
+
+    private static final int VARIANTS_PAGE_SIZE = 50;
+    private static final int LEVELS_PAGE_SIZE = 100;
+    private static final double VARIANTS_LOOKUP_COST = 1 + ShopifyService.CONNECTION_COST
+            + VARIANTS_PAGE_SIZE * (1 + ShopifyService.INVENTORY_ITEM_COST);
+    private static final double LEVELS_LOOKUP_COST = 1 + ShopifyService.CONNECTION_COST
+            + LEVELS_PAGE_SIZE * ShopifyService.LEVEL_COST;
+
+    private final ShopifyService service;
+    private final QueryCostGovernor governor;
+
+    NestedPageFetcher(ShopifyService service, QueryCostGovernor governor) {
+        this.service = service;
+        this.governor = governor;
+    }
+
+    /**
+     * Fetches the remaining variants and levels of a products page. Extra variant rows
+     * are inserted right after the rows already read for their product, and extra
+     * levels are added to their row's per-location quantities.
+     */
+    void completeProducts(List<Product> page, NestedPages nested) throws Exception {
+        if (nested.isEmpty()) {
+            return;
+        }
+        Map<String, List<Product>> extraRows = new HashMap<>();
+        ProductStore store = new ProductStore();
+        Deque<VariantContinuation> pending = new ArrayDeque<>(nested.variants);
+        nested.variants.clear();
+
+        while (!pending.isEmpty()) {
+            List<VariantContinuation> batch = nextBatch(pending, VARIANTS_LOOKUP_COST);
+            StringBuilder query = new StringBuilder("{\n");
+            for (int i = 0; i < batch.size(); i++) {
+                query.append("  v%d: node(id: \"%s\") { ... on Product { variants(first: %d, after: \"%s\") {"
+                                .formatted(i, batch.get(i).productId, VARIANTS_PAGE_SIZE, batch.get(i).cursor))
+                        .append(" pageInfo { hasNextPage endCursor } edges { node { id sku inventoryItem { id")
+                        .append(" inventoryLevels(first: %d) {".formatted(ShopifyService.LEVELS_PER_ITEM))
+                        .append(" pageInfo { hasNextPage endCursor } edges { node { available location { id name } } } } } } } } } }\n");
+            }
+            query.append("}");
+
+            service.executeGraphQL(query.toString(), batch.size() * VARIANTS_LOOKUP_COST, (body, meta) -> {
+                GraphQLResponseReader.readAliases(body, meta, (alias, in) -> {
+                    VariantContinuation continuation = batch.get(aliasIndex(alias));
+                    List<Product> rows = extraRows.computeIfAbsent(continuation.productId, id -> new ArrayList<>());
+                    String nextCursor = GraphQLResponseReader.readVariantsPage(in, continuation, store, rows, nested);
+                    if (nextCursor != null) {
+                        pending.add(continuation.after(nextCursor));
+                    }
+                });
+                return null;
+            });
+        }
+
+        // Variants fetched above may have brought their own truncated levels
+        completeLevels(nested);
+        if (!extraRows.isEmpty()) {
+            insertRows(page, extraRows);
+        }
+    }
+
+    /**
+     * Fetches the remaining levels of every inventory item recorded in {@code nested}.
+     */
+    void completeLevels(NestedPages nested) throws Exception {
+        Deque<LevelContinuation> pending = new ArrayDeque<>(nested.levels);
+        nested.levels.clear();
+
+        while (!pending.isEmpty()) {
+            List<LevelContinuation> batch = nextBatch(pending, LEVELS_LOOKUP_COST);
+            StringBuilder query = new StringBuilder("{\n");
+            for (int i = 0; i < batch.size(); i++) {
+                query.append("  l%d: node(id: \"%s\") { ... on InventoryItem { id inventoryLevels(first: %d, after: \"%s\") {"
+                                .formatted(i, batch.get(i).inventoryItemId, LEVELS_PAGE_SIZE, batch.get(i).cursor))
+                        .append(" pageInfo { hasNextPage endCursor } edges { node { available location { id name } } } } } }\n");
+            }
+            query.append("}");
+
+            service.executeGraphQL(query.toString(), batch.size() * LEVELS_LOOKUP_COST, (body, meta) -> {
+                GraphQLResponseReader.readAliases(body, meta, (alias, in) -> {
+                    LevelContinuation continuation = batch.get(aliasIndex(alias));
+                    String nextCursor = GraphQLResponseReader.readLevelsPage(in, continuation);
+                    if (nextCursor != null) {
+                        pending.add(continuation.after(nextCursor));
+                    }
+                });
+                return null;
+            });
+        }
+    }
+
+    /** Takes as many continuations as fit in one query's cost budget. */
+    private <T> List<T> nextBatch(Deque<T> pending, double lookupCost) {
+        int fitting = (int) (governor.maximumQueryCost(ShopifyService.MAX_QUERY_COST) / lookupCost);
+        List<T> batch = new ArrayList<>();
+        while (!pending.isEmpty() && batch.size() < Math.max(1, fitting)) {
+            batch.add(pending.poll());
+        }
+        return batch;
+    }
+
+    private static int aliasIndex(String alias) {
+        return Integer.parseInt(alias.substring(1));
+    }
+
+    private static void insertRows(List<Product> page, Map<String, List<Product>> extraRows) {
+        List<Product> merged = new ArrayList<>(page.size() + extraRows.size());
+        for (int i = 0; i < page.size(); i++) {
+            Product row = page.get(i);
+            merged.add(row);
+            boolean lastOfProduct = i + 1 == page.size() || !page.get(i + 1).getId().equals(row.getId());
+            if (lastOfProduct) {
+                List<Product> rows = extraRows.remove(row.getId());
+                if (rows != null) {
+                    merged.addAll(rows);
+                }
+            }
+        }
+        page.clear();
+        page.addAll(merged);
+    }
+}
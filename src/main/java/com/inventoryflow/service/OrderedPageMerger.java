@@ -0,0 +1,51 @@
+package com.inventoryflow.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.inventoryflow.model.Product;
+
+/**
+ * Merges pages produced concurrently by ordered partitions into a single stream.
+ * Pages of the earliest unfinished partition pass straight through; pages of later
+ * partitions are buffered until every partition before them has completed, so the
+ * stream is in partition order however the fetches interleave. The downstream
+ * consumer is never called concurrently.
+ */
+class OrderedPageMerger {
+
+    private final Consumer<List<Product>> downstream;
+    private final List<List<List<Product>>> buffered;
+    private final boolean[] completed;
+    private int head;
+
+    OrderedPageMerger(int partitions, Consumer<List<Product>> downstream) {
+        this.downstream = downstream;
+        this.buffered = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            buffered.add(new ArrayList<>());
+        }
+        this.completed = new boolean[partitions];
+    }
+
+    synchronized void accept(int partition, List<Product> page) {
+        if (partition == head) {
+            downstream.accept(page);
+        } else {
+            buffered.get(partition).add(page);
+        }
+    }
+
+    synchronized void complete(int partition) {
+        completed[partition] = true;
+        while (head < completed.length && completed[head]) {
+            head++;
+            if (head < completed.length) {
+                List<List<Product>> pages = buffered.get(head);
+                pages.forEach(downstream);
+                pages.clear();
+            }
+        }
+    }
+}
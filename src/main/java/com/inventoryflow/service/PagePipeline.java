@@ -0,0 +1,101 @@
+package com.inventoryflow.service;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.service.GraphQLResponseReader.NestedPages;
+import com.inventoryflow.service.GraphQLResponseReader.ResponseMeta;
+
+/**
+ * Second stage of a paginated fetch: decodes downloaded product pages into rows on
+ * a worker thread while the fetching thread is already waiting on the next page.
+ * The queue between the stages is bounded, so a slow consumer throttles the
+ * download instead of letting raw pages pile up in memory. Products whose variants
+ * or levels didn't fit in the page are completed here before the page is delivered.
+ */
+class PagePipeline {
+
+    private static final int QUEUE_CAPACITY = 2;
+    private static final byte[] END_OF_PAGES = new byte[0];
+
+    private final BlockingQueue<byte[]> pages = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Consumer<List<Product>> downstream;
+    private final NestedPageFetcher nestedPages;
+    private final Thread worker;
+    private volatile RuntimeException failure;
+    private int total;
+
+    PagePipeline(Consumer<List<Product>> downstream, NestedPageFetcher nestedPages) {
+        this.downstream = downstream;
+        this.nestedPages = nestedPages;
+        this.worker = new Thread(this::parsePages, "shopify-page-parser");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues the raw body of a products page, blocking while the parser is behind.
+     */
+    void submit(byte[] responseBody) throws InterruptedException {
+        rethrowFailure();
+        pages.put(responseBody);
+    }
+
+    /**
+     * Waits for every queued page to be parsed and delivered.
+     *
+     * @return the total number of rows delivered
+     */
+    int finish() throws InterruptedException {
+        pages.put(END_OF_PAGES);
+        worker.join();
+        rethrowFailure();
+        return total;
+    }
+
+    /**
+     * Stops the parser without draining the queue, used when the fetch fails.
+     */
+    void abort() {
+        worker.interrupt();
+    }
+
+    private void parsePages() {
+        try {
+            while (true) {
+                byte[] body = pages.take();
+                if (body == END_OF_PAGES) {
+                    return;
+                }
+                List<Product> page = new ArrayList<>();
+                ProductStore store = new ProductStore();
+                NestedPages nested = new NestedPages();
+                GraphQLResponseReader.readConnection(new ByteArrayInputStream(body), "products",
+                        node -> GraphQLResponseReader.readProductNode(node, store, page, nested), new ResponseMeta());
+                nestedPages.completeProducts(page, nested);
+                if (!page.isEmpty()) {
+                    total += page.size();
+                    downstream.accept(page);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failure = new RuntimeException("Failed to parse products: " + e.getMessage(), e);
+            // Unblock a fetcher waiting for queue space; it sees the failure next time
+            pages.clear();
+        }
+    }
+
+    private void rethrowFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
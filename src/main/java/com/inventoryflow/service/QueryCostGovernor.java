@@ -0,0 +1,123 @@
+package com.inventoryflow.service;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket mirroring Shopify's GraphQL cost limit for one store.
+ * Callers reserve the expected cost of a query before sending it and report the
+ * throttle status Shopify returns afterwards, so the local estimate tracks the real
+ * bucket. A reservation the bucket can't cover waits for it to restore instead of
+ * being rejected by Shopify mid-sync, and re-checks whenever a response resyncs the
+ * estimate, so a pessimistic first guess doesn't hold every caller back.
+ */
+final class QueryCostGovernor {
+
+    /** Shopify's default bucket until the first response reports the real one. */
+    private static final double DEFAULT_MAXIMUM_AVAILABLE = 1000;
+    private static final double DEFAULT_RESTORE_RATE = 50;
+
+    private static final Map<String, QueryCostGovernor> GOVERNORS = new ConcurrentHashMap<>();
+
+    private double maximumAvailable = DEFAULT_MAXIMUM_AVAILABLE;
+    private double restoreRate = DEFAULT_RESTORE_RATE;
+    private double available = DEFAULT_MAXIMUM_AVAILABLE;
+    private double inFlightCost;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos;
+
+    private QueryCostGovernor() {
+    }
+
+    /**
+     * Returns the governor shared by every caller talking to the given endpoint,
+     * since Shopify applies one bucket per app and store.
+     */
+    static QueryCostGovernor forEndpoint(URI graphqlEndpoint) {
+        return GOVERNORS.computeIfAbsent(graphqlEndpoint.toString(), key -> new QueryCostGovernor());
+    }
+
+    /**
+     * Reserves the expected cost of a query, waiting until the bucket can cover it.
+     */
+    synchronized void acquire(double expectedCost) throws InterruptedException {
+        while (true) {
+            refill();
+            double cost = Math.min(expectedCost, maximumAvailable);
+            long pauseNanos = pausedUntilNanos - System.nanoTime();
+            if (pauseNanos <= 0 && available >= cost) {
+                available -= cost;
+                inFlightCost += expectedCost;
+                return;
+            }
+            long restoreNanos = (long) ((cost - available) / restoreRate * 1e9);
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(pauseNanos, restoreNanos));
+            wait(Math.max(1, waitMillis));
+        }
+    }
+
+    /**
+     * Settles a reservation using the throttle status Shopify reported for it.
+     * Negative values mean the response carried no cost information.
+     */
+    synchronized void complete(double expectedCost, double currentlyAvailable,
+                               double maximum, double restore) {
+        inFlightCost = Math.max(0, inFlightCost - expectedCost);
+        if (currentlyAvailable < 0) {
+            return;
+        }
+        if (maximum > 0) {
+            maximumAvailable = maximum;
+        }
+        if (restore > 0) {
+            restoreRate = restore;
+        }
+        // Shopify's figure doesn't yet include queries still in flight from other callers
+        available = currentlyAvailable - inFlightCost;
+        lastRefillNanos = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * Returns a reservation for a request that never reached Shopify's cost accounting.
+     */
+    synchronized void release(double expectedCost) {
+        inFlightCost = Math.max(0, inFlightCost - expectedCost);
+        refill();
+        available = Math.min(maximumAvailable, available + Math.min(expectedCost, maximumAvailable));
+        notifyAll();
+    }
+
+    /**
+     * Holds every caller back after an HTTP 429, for the Retry-After period if given.
+     */
+    synchronized void pause(double expectedCost, long retryAfterMillis) {
+        if (retryAfterMillis > 0) {
+            // The rejected request cost nothing; Shopify told us exactly how long to back off
+            release(expectedCost);
+            pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + retryAfterMillis * 1_000_000);
+        } else {
+            inFlightCost = Math.max(0, inFlightCost - expectedCost);
+            // Without a hint, assume the bucket is empty and let it restore
+            available = 0;
+            lastRefillNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the largest cost a single query should request, bounded by both
+     * Shopify's per-query limit and the size of the bucket.
+     */
+    synchronized double maximumQueryCost(double perQueryLimit) {
+        return Math.min(perQueryLimit, maximumAvailable);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double restored = (now - lastRefillNanos) / 1e9 * restoreRate;
+        available = Math.min(maximumAvailable, available + restored);
+        lastRefillNanos = now;
+    }
+}
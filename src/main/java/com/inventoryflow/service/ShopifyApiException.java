@@ -0,0 +1,34 @@
+package com.inventoryflow.service;
+
+/**
+ * Error reported by Shopify in the {@code errors} field of a GraphQL response.
+ * Carries the error code so callers can react to specific failures, such as a
+ * query exceeding the maximum cost.
+ */
+public class ShopifyApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String errorCode;
+    private final double requestedQueryCost;
+
+    public ShopifyApiException(String message, String errorCode, double requestedQueryCost) {
+        super("Shopify API error: " + message);
+        this.errorCode = errorCode;
+        this.requestedQueryCost = requestedQueryCost;
+    }
+
+    /**
+     * Returns the error's {@code extensions.code}, or null if Shopify didn't send one.
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Returns the cost Shopify calculated for the failed query, or a negative value if unknown.
+     */
+    public double getRequestedQueryCost() {
+        return requestedQueryCost;
+    }
+}
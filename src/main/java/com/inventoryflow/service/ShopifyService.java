@@ -1,19 +1,37 @@
 package com.inventoryflow.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.inventoryflow.model.Product;
+import com.inventoryflow.service.GraphQLResponseReader.ConnectionPage;
+import com.inventoryflow.service.GraphQLResponseReader.NestedPages;
+import com.inventoryflow.service.GraphQLResponseReader.ResponseMeta;
 import com.inventoryflow.util.DatabaseManager;
 
 /**
@@ -24,80 +42,476 @@ public class ShopifyService {
 
     private static final String API_VERSION = "2024-01";
     private static final int PAGE_SIZE = 50;
+    private static final int INVENTORY_PAGE_SIZE = 100;
+    private static final int LOCATIONS_PAGE_SIZE = 100;
+    // Enough for most products and items; longer connections are finished by NestedPageFetcher
+    static final int VARIANTS_PER_PRODUCT = 10;
+    static final int LEVELS_PER_ITEM = 5;
+    private static final Duration WATERMARK_OVERLAP = Duration.ofMinutes(2);
+
+    /** Shopify rejects any single query whose requested cost exceeds this. */
+    static final double MAX_QUERY_COST = 1000;
+    private static final int MAX_THROTTLE_RETRIES = 5;
+
+    // Requested cost estimates following Shopify's calculation: each connection costs 2
+    // plus its page size times the cost of one node, and each object costs 1
+    static final double CONNECTION_COST = 2;
+    private static final double SMALL_QUERY_COST = 10;
+    /** An inventory level plus the location object it names. */
+    static final double LEVEL_COST = 2;
+    static final double INVENTORY_ITEM_COST = 1 + CONNECTION_COST + LEVELS_PER_ITEM * LEVEL_COST;
+    private static final double INITIAL_PRODUCT_COST =
+            2 + CONNECTION_COST + VARIANTS_PER_PRODUCT * (1 + INVENTORY_ITEM_COST);
+
+    /** Known catalog sizes at or above this many rows are synced through a bulk operation. */
+    private static final int BULK_SYNC_THRESHOLD = 10_000;
+    /** Below this many rows a sync is only a few pages, not worth partitioning. */
+    private static final int PARALLEL_SYNC_THRESHOLD = 500;
+    private static final int MAX_SYNC_CONCURRENCY = 16;
+    /** Shopify accepts at most this many IDs in one nodes() lookup. */
+    private static final int MAX_NODE_IDS = 250;
 
     private final HttpClient httpClient;
     private final Gson gson;
-    private final String shopDomain;
+    private final URI graphqlEndpoint;
     private final String accessToken;
+    private final DatabaseManager dbManager;
+    private final BulkOperationSync bulkSync;
+    private final QueryCostGovernor governor;
+    private final NestedPageFetcher nestedPages;
+    private volatile int catalogSizeHint;
+    private volatile int syncConcurrency;
+    private volatile double productCost = INITIAL_PRODUCT_COST;
+    private volatile boolean shutdown;
 
     public ShopifyService() {
-        DatabaseManager dbManager = DatabaseManager.getInstance();
-        this.shopDomain = dbManager.getShopifyDomain();
-        this.accessToken = dbManager.getShopifyToken();
+        this(DatabaseManager.getInstance());
+    }
+
+    /**
+     * Creates a service that talks to an explicit GraphQL endpoint, such as a local
+     * stand-in server, without reading or writing stored settings.
+     */
+    public ShopifyService(URI graphqlEndpoint, String accessToken) {
+        this(graphqlEndpoint, accessToken, null);
+    }
+
+    private ShopifyService(DatabaseManager dbManager) {
+        this(URI.create(String.format("https://%s/admin/api/%s/graphql.json",
+                        dbManager.getShopifyDomain(), API_VERSION)),
+                dbManager.getShopifyToken(), dbManager);
+    }
+
+    private ShopifyService(URI graphqlEndpoint, String accessToken, DatabaseManager dbManager) {
+        this.graphqlEndpoint = graphqlEndpoint;
+        this.accessToken = accessToken;
+        this.dbManager = dbManager;
+        this.catalogSizeHint = dbManager != null ? dbManager.getCatalogSize() : 0;
+        setSyncConcurrency(dbManager != null ? dbManager.getSyncConcurrency() : 1);
 
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(30))
                 .build();
         this.gson = new Gson();
+        this.bulkSync = new BulkOperationSync(this, httpClient);
+        this.governor = QueryCostGovernor.forEndpoint(graphqlEndpoint);
+        this.nestedPages = new NestedPageFetcher(this, governor);
     }
 
     /**
      * Fetches all products with their inventory levels from Shopify.
-     * Uses cursor-based pagination to handle large inventories.
+     * Uses cursor-based pagination, switching to a bulk operation for large catalogs.
      */
     public CompletableFuture<List<Product>> fetchProducts() {
+        List<Product> allProducts = new ArrayList<>();
+        return streamProducts(allProducts::addAll).thenApply(total -> allProducts);
+    }
+
+    /**
+     * Streams all products page by page as they arrive from Shopify.
+     * The consumer is called on a background thread once per page, in page order,
+     * so callers can render the first rows without waiting for the whole catalog.
+     *
+     * @return a future completing with the total number of products delivered
+     */
+    public CompletableFuture<Integer> streamProducts(Consumer<List<Product>> pageConsumer) {
+        CompletableFuture<Integer> sync;
+        if (catalogSizeHint >= BULK_SYNC_THRESHOLD) {
+            sync = streamProductsInBulk(pageConsumer);
+        } else if (catalogSizeHint >= PARALLEL_SYNC_THRESHOLD && syncConcurrency > 1) {
+            sync = streamProductsPartitioned(syncConcurrency, pageConsumer);
+        } else {
+            sync = streamProducts(null, pageConsumer);
+        }
+        return sync.thenApply(total -> {
+            catalogSizeHint = total;
+            if (dbManager != null) {
+                dbManager.storeCatalogSize(total);
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Streams the full catalog through a Shopify bulk operation instead of cursor
+     * pagination. Slower to start, but far cheaper for large catalogs since the
+     * export runs server-side and is downloaded as a single JSONL file. An export
+     * Shopify doesn't finish within the {@link #setBulkOperationTimeout timeout} is
+     * canceled and the catalog is paged through instead.
+     */
+    public CompletableFuture<Integer> streamProductsInBulk(Consumer<List<Product>> pageConsumer) {
         return CompletableFuture.supplyAsync(() -> {
-            List<Product> allProducts = new ArrayList<>();
-            String cursor = null;
-            boolean hasNextPage = true;
+            try {
+                return bulkSync.run(pageConsumer);
+            } catch (BulkOperationSync.TimedOutException e) {
+                // Nothing was delivered yet, so paging from the start loses no rows
+                System.err.println("Warning: " + e.getMessage() + "; falling back to paginated sync");
+                return fetchPages(null, pageConsumer);
+            }
+        });
+    }
 
-            while (hasNextPage) {
-                try {
-                    JsonObject response = executeGraphQL(buildProductsQuery(cursor));
-                    JsonObject data = response.getAsJsonObject("data");
-
-                    if (data == null) {
-                        JsonArray errors = response.getAsJsonArray("errors");
-                        if (errors != null && errors.size() > 0) {
-                            String errorMsg = errors.get(0).getAsJsonObject()
-                                    .get("message").getAsString();
-                            throw new RuntimeException("Shopify API error: " + errorMsg);
-                        }
-                        throw new RuntimeException("Invalid response from Shopify API");
-                    }
+    /**
+     * Sets how long a bulk sync waits for Shopify to finish its export before
+     * falling back to pagination.
+     */
+    public void setBulkOperationTimeout(Duration timeout) {
+        bulkSync.setMaxWait(timeout);
+    }
 
-                    JsonObject products = data.getAsJsonObject("products");
-                    JsonArray edges = products.getAsJsonArray("edges");
+    /**
+     * Stops syncs still running, such as at logout: a wait on a bulk operation ends
+     * at once and cancels it, and paginated syncs stop before their next page. The
+     * service can't sync again afterwards.
+     */
+    public void shutdown() {
+        shutdown = true;
+        bulkSync.cancel();
+    }
 
-                    for (JsonElement edge : edges) {
-                        JsonObject node = edge.getAsJsonObject().getAsJsonObject("node");
-                        List<Product> parsed = parseProductNode(node);
-                        allProducts.addAll(parsed);
-                    }
+    /**
+     * Streams the full catalog by splitting it into product ID ranges and paging
+     * each range concurrently. Pages are delivered in catalog order, the same rows
+     * in the same order as a sequential sync: the first unfinished range streams
+     * straight through, and pages of later ranges are held back until every earlier
+     * range has been delivered. All partitions draw from the same cost governor, so
+     * concurrency only fills idle network time and never outruns the store's rate limit.
+     */
+    public CompletableFuture<Integer> streamProductsPartitioned(int partitions,
+                                                                Consumer<List<Product>> pageConsumer) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> filters;
+            try {
+                filters = partitionFilters(partitions);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to fetch products: " + e.getMessage(), e);
+            }
+            if (filters.isEmpty()) {
+                return 0;
+            }
 
-                    JsonObject pageInfo = products.getAsJsonObject("pageInfo");
-                    hasNextPage = pageInfo.get("hasNextPage").getAsBoolean();
+            OrderedPageMerger merger = new OrderedPageMerger(filters.size(), pageConsumer);
+            ExecutorService executor = Executors.newFixedThreadPool(filters.size(), runnable -> {
+                Thread thread = new Thread(runnable, "shopify-sync-partition");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Integer>> partitionResults = new ArrayList<>();
+                for (int i = 0; i < filters.size(); i++) {
+                    int partition = i;
+                    partitionResults.add(executor.submit(() -> {
+                        int count = fetchPages(filters.get(partition),
+                                page -> merger.accept(partition, page));
+                        merger.complete(partition);
+                        return count;
+                    }));
+                }
 
-                    if (hasNextPage && edges.size() > 0) {
-                        cursor = edges.get(edges.size() - 1).getAsJsonObject()
-                                .get("cursor").getAsString();
-                    }
+                int total = 0;
+                for (Future<Integer> result : partitionResults) {
+                    total += result.get();
+                }
+                return total;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException
+                        ? (RuntimeException) cause
+                        : new RuntimeException("Failed to fetch products: " + cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Product sync interrupted", e);
+            } finally {
+                // Stops the remaining partitions early if one of them failed
+                executor.shutdownNow();
+            }
+        });
+    }
+
+    /**
+     * Sets how many partitions a full sync fetches concurrently; 1 disables partitioning.
+     */
+    public void setSyncConcurrency(int concurrency) {
+        this.syncConcurrency = Math.max(1, Math.min(MAX_SYNC_CONCURRENCY, concurrency));
+    }
+
+    /**
+     * Streams only the products whose catalog data changed after the given time.
+     * Every variant row of a changed product is delivered, so callers can replace
+     * the product's rows as a unit.
+     */
+    public CompletableFuture<Integer> streamProductsUpdatedSince(Instant since,
+                                                                 Consumer<List<Product>> pageConsumer) {
+        return streamProducts(updatedAtFilter(since), pageConsumer);
+    }
 
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to fetch products: " + e.getMessage(), e);
+    /**
+     * Fetches the per-location available quantities of every inventory item with a
+     * level updated after the given time, keyed by inventory item ID and packed as
+     * {@link com.inventoryflow.model.LocationLevels}. Stock adjustments only change the
+     * inventory level, not the product or the inventory item, so each location's
+     * levels are filtered on their own updated_at; the items found are then looked up
+     * with all their levels, as in {@link #refreshInventoryLevels}.
+     */
+    public CompletableFuture<Map<String, int[]>> fetchInventoryLevelsUpdatedSince(Instant since) {
+        return CompletableFuture.supplyAsync(() -> {
+            String filter = updatedAtFilter(since);
+            Set<String> changed = new LinkedHashSet<>();
+            try {
+                for (String locationId : fetchLocationIds()) {
+                    collectLevelsUpdated(locationId, filter, changed);
                 }
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to fetch inventory changes: " + e.getMessage(), e);
+            }
+            return changed;
+        }).thenCompose(this::refreshInventoryLevels);
+    }
+
+    private List<String> fetchLocationIds() throws Exception {
+        List<String> locationIds = new ArrayList<>();
+        String cursor = null;
+        boolean hasNextPage = true;
+        while (hasNextPage) {
+            ConnectionPage page = executeGraphQL(buildLocationsQuery(cursor),
+                    CONNECTION_COST + LOCATIONS_PAGE_SIZE,
+                    (body, meta) -> GraphQLResponseReader.readConnection(body, "locations",
+                            node -> locationIds.add(GraphQLResponseReader.readId(node)), meta));
+            hasNextPage = page.hasNextPage && page.endCursor != null;
+            cursor = page.endCursor;
+        }
+        return locationIds;
+    }
+
+    /** Adds the inventory item of every level at the location that matches the filter. */
+    private void collectLevelsUpdated(String locationId, String filter, Set<String> itemIds) throws Exception {
+        String cursor = null;
+        boolean hasNextPage = true;
+        while (hasNextPage) {
+            ConnectionPage page = executeGraphQL(buildLocationLevelsQuery(locationId, cursor, filter),
+                    1 + CONNECTION_COST + INVENTORY_PAGE_SIZE * LEVEL_COST,
+                    (body, meta) -> GraphQLResponseReader.readObjectConnection(body, "location", "inventoryLevels",
+                            node -> {
+                                String itemId = GraphQLResponseReader.readLevelItemId(node);
+                                if (itemId != null) {
+                                    itemIds.add(itemId);
+                                }
+                            }, meta));
+            hasNextPage = page.hasNextPage && page.endCursor != null;
+            cursor = page.endCursor;
+        }
+    }
+
+    /**
+     * Refetches only the per-location available quantities of the given inventory
+     * items, keyed by inventory item ID and packed as
+     * {@link com.inventoryflow.model.LocationLevels}. Lookups go straight to the known
+     * items in batched nodes() queries, skipping titles, images and SKUs, so
+     * refreshing stock costs a small fraction of a full sync. Batches run concurrently under the shared cost governor.
+     */
+    public CompletableFuture<Map<String, int[]>> refreshInventoryLevels(Collection<String> inventoryItemIds) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> ids = new ArrayList<>(new LinkedHashSet<>(inventoryItemIds));
+            ids.removeIf(id -> id == null || id.isEmpty());
+            Map<String, int[]> levels = new ConcurrentHashMap<>();
+            if (ids.isEmpty()) {
+                return levels;
+            }
+
+            int budget = (int) ((governor.maximumQueryCost(MAX_QUERY_COST) - CONNECTION_COST) / INVENTORY_ITEM_COST);
+            int batchSize = Math.max(1, Math.min(MAX_NODE_IDS, budget));
+            List<List<String>> batches = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += batchSize) {
+                batches.add(ids.subList(i, Math.min(ids.size(), i + batchSize)));
             }
 
-            return allProducts;
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(syncConcurrency, batches.size())), runnable -> {
+                        Thread thread = new Thread(runnable, "shopify-inventory-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (List<String> batch : batches) {
+                    results.add(executor.submit(() -> {
+                        fetchInventoryItems(batch, levels);
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+                return levels;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw new RuntimeException("Failed to refresh inventory: " + cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Inventory refresh interrupted", e);
+            } finally {
+                executor.shutdownNow();
+            }
         });
     }
 
-    private String buildProductsQuery(String cursor) {
+    private void fetchInventoryItems(List<String> inventoryItemIds, Map<String, int[]> levels) throws Exception {
+        Map<String, int[]> batchLevels = new HashMap<>();
+        NestedPages nested = new NestedPages();
+        executeGraphQL(buildInventoryNodesQuery(inventoryItemIds),
+                CONNECTION_COST + inventoryItemIds.size() * INVENTORY_ITEM_COST,
+                (body, meta) -> {
+                    GraphQLResponseReader.readNodes(body, meta,
+                            node -> GraphQLResponseReader.readInventoryItemNode(node, batchLevels, nested));
+                    return null;
+                });
+        nestedPages.completeLevels(nested);
+        levels.putAll(batchLevels);
+    }
+
+    private CompletableFuture<Integer> streamProducts(String searchQuery,
+                                                      Consumer<List<Product>> pageConsumer) {
+        return CompletableFuture.supplyAsync(() -> fetchPages(searchQuery, pageConsumer));
+    }
+
+    /**
+     * Pages through every product matching the search query. The calling thread only
+     * downloads pages and skims each one for its cursor and cost without tokenizing the
+     * products, then requests the next page right away; decoding rows happens once, on
+     * the pipeline's parser thread, so parse time hides behind network time.
+     */
+    private int fetchPages(String searchQuery, Consumer<List<Product>> pageConsumer) {
+        PagePipeline pipeline = new PagePipeline(pageConsumer, nestedPages);
+        String cursor = null;
+        boolean hasNextPage = true;
+
+        try {
+            while (hasNextPage) {
+                if (shutdown) {
+                    throw new CancellationException("Sync canceled");
+                }
+                try {
+                    int pageSize = productsPageSize();
+                    byte[][] body = new byte[1][];
+                    ConnectionPage pageInfo = executeGraphQL(
+                            buildProductsQuery(cursor, searchQuery, pageSize),
+                            pageSize * productCost + CONNECTION_COST,
+                            (in, meta) -> {
+                                body[0] = in.readAllBytes();
+                                ConnectionPage result = GraphQLResponseReader.skimConnection(
+                                        body[0], "products", meta);
+                                learnProductCost(meta.requestedQueryCost, pageSize);
+                                return result;
+                            });
+
+                    pipeline.submit(body[0]);
+                    hasNextPage = pageInfo.hasNextPage && pageInfo.endCursor != null;
+                    cursor = pageInfo.endCursor;
+
+                } catch (ShopifyApiException e) {
+                    if (!"MAX_COST_EXCEEDED".equals(e.getErrorCode())
+                            || e.getRequestedQueryCost() <= 0 || productsPageSize() == 1) {
+                        throw e;
+                    }
+                    // Retry the same cursor with a page sized from the cost Shopify reported
+                    learnProductCost(e.getRequestedQueryCost(), productsPageSize());
+                }
+            }
+            return pipeline.finish();
+        } catch (Exception e) {
+            pipeline.abort();
+            throw new RuntimeException("Failed to fetch products: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits the product ID space into contiguous ranges expressed as search filters.
+     * Shopify IDs aren't dense, so ranges only roughly balance, but they are cheap to
+     * compute and keep catalog order across partitions.
+     */
+    private List<String> partitionFilters(int partitions) throws Exception {
+        long minId = boundaryProductId(false);
+        if (minId < 0) {
+            return List.of();
+        }
+        long maxId = boundaryProductId(true);
+        long span = maxId - minId + 1;
+        int count = (int) Math.max(1, Math.min(partitions, span));
+
+        List<String> filters = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long from = minId + span * i / count;
+            long to = minId + span * (i + 1) / count - 1;
+            filters.add("id:>=" + from + " AND id:<=" + to);
+        }
+        return filters;
+    }
+
+    private long boundaryProductId(boolean last) throws Exception {
+        String query = "{ products(first: 1, sortKey: ID%s) { edges { node { id } } } }"
+                .formatted(last ? ", reverse: true" : "");
+        JsonArray edges = executeGraphQL(query).getAsJsonObject("products").getAsJsonArray("edges");
+        if (edges.size() == 0) {
+            return -1;
+        }
+        String gid = edges.get(0).getAsJsonObject().getAsJsonObject("node").get("id").getAsString();
+        return Long.parseLong(gid.substring(gid.lastIndexOf('/') + 1));
+    }
+
+    private String updatedAtFilter(Instant since) {
+        // Overlap the watermark slightly so clock skew between us and Shopify can't drop changes
+        Instant from = since.minus(WATERMARK_OVERLAP).truncatedTo(ChronoUnit.SECONDS);
+        return "updated_at:>'" + from + "'";
+    }
+
+    /**
+     * Sizes a products page so its requested cost fits both Shopify's per-query limit
+     * and the store's bucket, based on the cost per product seen so far.
+     */
+    private int productsPageSize() {
+        double budget = governor.maximumQueryCost(MAX_QUERY_COST) - CONNECTION_COST;
+        int fitting = (int) (budget / productCost);
+        return Math.max(1, Math.min(PAGE_SIZE, fitting));
+    }
+
+    private void learnProductCost(double requestedQueryCost, int pageSize) {
+        if (requestedQueryCost > 0) {
+            productCost = Math.max(1, (requestedQueryCost - CONNECTION_COST) / pageSize);
+        }
+    }
+
+    private String buildProductsQuery(String cursor, String searchQuery, int pageSize) {
         String afterClause = cursor != null ? ", after: \"" + cursor + "\"" : "";
+        String queryClause = searchQuery != null ? ", query: \"" + searchQuery + "\"" : "";
 
+        // pageInfo comes before edges, so the fetching thread can skim it without reading the products
         return """
             {
-              products(first: %d%s) {
+              products(first: %d%s%s) {
+                pageInfo {
+                  hasNextPage
+                  endCursor
+                }
                 edges {
                   cursor
                   node {
@@ -106,17 +520,29 @@ public class ShopifyService {
                     featuredImage {
                       url
                     }
-                    variants(first: 100) {
+                    variants(first: %d) {
+                      pageInfo {
+                        hasNextPage
+                        endCursor
+                      }
                       edges {
                         node {
                           id
                           sku
                           inventoryItem {
                             id
-                            inventoryLevels(first: 10) {
+                            inventoryLevels(first: %d) {
+                              pageInfo {
+                                hasNextPage
+                                endCursor
+                              }
                               edges {
                                 node {
                                   available
+                                  location {
+                                    id
+                                    name
+                                  }
                                 }
                               }
                             }
@@ -126,89 +552,186 @@ public class ShopifyService {
                     }
                   }
                 }
-                pageInfo {
-                  hasNextPage
-                }
               }
             }
-            """.formatted(PAGE_SIZE, afterClause);
+            """.formatted(pageSize, afterClause, queryClause, VARIANTS_PER_PRODUCT, LEVELS_PER_ITEM);
     }
 
-    private List<Product> parseProductNode(JsonObject node) {
-        List<Product> products = new ArrayList<>();
-
-        String productId = node.get("id").getAsString();
-        String productName = node.get("title").getAsString();
-
-        String imageUrl = "";
-        if (node.has("featuredImage") && !node.get("featuredImage").isJsonNull()) {
-            imageUrl = node.getAsJsonObject("featuredImage").get("url").getAsString();
-        }
-
-        JsonArray variants = node.getAsJsonObject("variants").getAsJsonArray("edges");
-
-        for (JsonElement variantEdge : variants) {
-            JsonObject variant = variantEdge.getAsJsonObject().getAsJsonObject("node");
+    private String buildLocationsQuery(String cursor) {
+        String afterClause = cursor != null ? ", after: \"" + cursor + "\"" : "";
 
-            String sku = "";
-            if (variant.has("sku") && !variant.get("sku").isJsonNull()) {
-                sku = variant.get("sku").getAsString();
+        return """
+            {
+              locations(first: %d%s) {
+                pageInfo {
+                  hasNextPage
+                  endCursor
+                }
+                edges {
+                  node {
+                    id
+                  }
+                }
+              }
             }
+            """.formatted(LOCATIONS_PAGE_SIZE, afterClause);
+    }
 
-            String inventoryItemId = "";
-            int totalInventory = 0;
-
-            if (variant.has("inventoryItem") && !variant.get("inventoryItem").isJsonNull()) {
-                JsonObject inventoryItem = variant.getAsJsonObject("inventoryItem");
-                inventoryItemId = inventoryItem.get("id").getAsString();
-
-                JsonArray inventoryLevels = inventoryItem.getAsJsonObject("inventoryLevels")
-                        .getAsJsonArray("edges");
+    private String buildLocationLevelsQuery(String locationId, String cursor, String searchQuery) {
+        String afterClause = cursor != null ? ", after: \"" + cursor + "\"" : "";
 
-                for (JsonElement levelEdge : inventoryLevels) {
-                    JsonObject level = levelEdge.getAsJsonObject().getAsJsonObject("node");
-                    if (level.has("available") && !level.get("available").isJsonNull()) {
-                        totalInventory += level.get("available").getAsInt();
+        return """
+            {
+              location(id: "%s") {
+                inventoryLevels(first: %d, query: "%s"%s) {
+                  pageInfo {
+                    hasNextPage
+                    endCursor
+                  }
+                  edges {
+                    node {
+                      item {
+                        id
+                      }
                     }
+                  }
                 }
+              }
             }
+            """.formatted(locationId, INVENTORY_PAGE_SIZE, searchQuery, afterClause);
+    }
 
-            products.add(new Product(
-                    productId,
-                    imageUrl,
-                    productName,
-                    sku,
-                    totalInventory,
-                    inventoryItemId
-            ));
+    private String buildInventoryNodesQuery(List<String> inventoryItemIds) {
+        StringBuilder ids = new StringBuilder();
+        for (String id : inventoryItemIds) {
+            if (ids.length() > 0) {
+                ids.append(", ");
+            }
+            ids.append('"').append(id).append('"');
         }
 
-        return products;
+        return """
+            {
+              nodes(ids: [%s]) {
+                ... on InventoryItem {
+                  id
+                  inventoryLevels(first: %d) {
+                    pageInfo {
+                      hasNextPage
+                      endCursor
+                    }
+                    edges {
+                      node {
+                        available
+                        location {
+                          id
+                          name
+                        }
+                      }
+                    }
+                  }
+                }
+              }
+            }
+            """.formatted(ids, LEVELS_PER_ITEM);
     }
 
-    private JsonObject executeGraphQL(String query) throws Exception {
-        String url = String.format("https://%s/admin/api/%s/graphql.json",
-                shopDomain, API_VERSION);
+    /**
+     * Executes a query and returns its data object parsed into a JSON tree.
+     * Only meant for small responses; pages of products go through the streaming overload.
+     */
+    JsonObject executeGraphQL(String query) throws Exception {
+        return executeGraphQL(query, SMALL_QUERY_COST, GraphQLResponseReader::readTree);
+    }
 
+    /**
+     * Executes a query through the shared cost governor and hands the raw response
+     * body to the given handler, so large responses can be parsed as they stream in.
+     * Throttled requests are retried once the bucket has restored enough; any other
+     * response without data is reported as a {@link ShopifyApiException}.
+     */
+    <T> T executeGraphQL(String query, double expectedCost, ResponseHandler<T> handler) throws Exception {
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("query", query);
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
+                .uri(graphqlEndpoint)
                 .header("Content-Type", "application/json")
                 .header("X-Shopify-Access-Token", accessToken)
                 .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(requestBody)))
                 .timeout(Duration.ofSeconds(30))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request,
-                HttpResponse.BodyHandlers.ofString());
+        for (int attempt = 1; ; attempt++) {
+            governor.acquire(expectedCost);
+
+            ResponseMeta meta = new ResponseMeta();
+            T result = null;
+            boolean rejected = false;
+            try {
+                HttpResponse<InputStream> response = httpClient.send(request,
+                        HttpResponse.BodyHandlers.ofInputStream());
+
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() == 429) {
+                        // Settles the reservation, so nothing below may release it again
+                        governor.pause(expectedCost, retryAfterMillis(response));
+                        rejected = true;
+                    } else if (response.statusCode() != 200) {
+                        throw new RuntimeException("API request failed with status: "
+                                + response.statusCode());
+                    } else {
+                        result = handler.handle(body, meta);
+                    }
+                }
+            } catch (Exception e) {
+                if (!rejected) {
+                    governor.release(expectedCost);
+                }
+                throw e;
+            }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("API request failed with status: " + response.statusCode());
+            if (rejected) {
+                if (attempt >= MAX_THROTTLE_RETRIES) {
+                    throw new RuntimeException("API request throttled after " + attempt + " attempts");
+                }
+                continue;
+            }
+
+            governor.complete(expectedCost, meta.currentlyAvailable,
+                    meta.maximumAvailable, meta.restoreRate);
+
+            if (meta.isThrottled() && attempt < MAX_THROTTLE_RETRIES) {
+                // The governor now knows how empty the bucket is, so the next acquire waits
+                continue;
+            }
+            if (!meta.hasData) {
+                if (meta.errorMessage != null) {
+                    throw new ShopifyApiException(meta.errorMessage, meta.errorCode,
+                            meta.requestedQueryCost);
+                }
+                throw new RuntimeException("Invalid response from Shopify API");
+            }
+            return result;
         }
+    }
+
+    private long retryAfterMillis(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+                .map(value -> {
+                    try {
+                        return (long) (Double.parseDouble(value.trim()) * 1000);
+                    } catch (NumberFormatException e) {
+                        return 0L;
+                    }
+                })
+                .orElse(0L);
+    }
 
-        return gson.fromJson(response.body(), JsonObject.class);
+    /** Consumes a GraphQL response body, recording errors and cost into the metadata. */
+    @FunctionalInterface
+    interface ResponseHandler<T> {
+        T handle(InputStream body, ResponseMeta meta) throws IOException;
     }
 
     /**
@@ -218,9 +741,8 @@ public class ShopifyService {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 String query = "{ shop { name } }";
-                JsonObject response = executeGraphQL(query);
-                return response.has("data") &&
-                       response.getAsJsonObject("data").has("shop");
+                JsonObject data = executeGraphQL(query);
+                return data.has("shop");
             } catch (Exception e) {
                 return false;
             }
@@ -0,0 +1,445 @@
+package com.inventoryflow.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.model.ShopifyGid;
+import com.inventoryflow.model.StoredRows;
+
+/**
+ * Compact columnar copy of the product catalog, written after each sync and
+ * memory-mapped on startup instead of querying SQLite. Product and inventory item
+ * GIDs are stored as their numeric part; every other distinct string is stored once
+ * in a string table, and rows are int columns of string indexes plus the inventory
+ * total. Per-location quantities are pairs of a snapshot location and a quantity,
+ * each row ending its run of pairs at an offset kept in a seventh column; a small
+ * location table holds the ID and name strings.
+ *
+ * <p>Opening a snapshot decodes nothing: {@link #toProducts} views the mapped rows
+ * through a {@link ProductStore} that only copies IDs and totals, and each string
+ * is decoded at most once, the first time a row needs it.
+ *
+ * <p>The path given to {@link #write} and {@link #open} names a small pointer file
+ * holding the name of the current data file beside it; each write adds a new
+ * numbered data file and then switches the pointer. A data file that is still
+ * mapped is never replaced or truncated, which Windows refuses, and one that can't
+ * be deleted yet is no longer pointed to and goes with a later write.
+ *
+ * <p>Data file layout, little-endian: a header of magic, format version, row count,
+ * string count, level int count, location count and a CRC32 of everything after the
+ * header; then the two numeric ID columns, string end offsets, the seven row
+ * columns, the level pairs, the location table, and finally the UTF-8 string bytes.
+ */
+public final class CatalogSnapshot implements StoredRows {
+
+    private static final int MAGIC = 0x53434649; // "IFCS"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 4 + 4 + 8;
+    private static final int COLUMNS = 7;
+    private static final int ID_COLUMNS = 2;
+    private static final String FILE_NAME = "catalog.snapshot";
+
+    private final LongBuffer idNumbers;
+    private final IntBuffer stringEnds;
+    private final IntBuffer columns;
+    private final IntBuffer levels;
+    private final IntBuffer locations;
+    private final ByteBuffer stringBytes;
+    private final String[] decoded;
+    /** Process-wide {@link Locations} index of each snapshot location, once interned. */
+    private final int[] locationIndexes;
+    private final int rowCount;
+
+    private CatalogSnapshot(ByteBuffer body, int rowCount, int stringCount, int levelInts, int locationCount) {
+        this.rowCount = rowCount;
+        int idBytes = rowCount * ID_COLUMNS * 8;
+        int stringEndsBytes = stringCount * 4;
+        int columnBytes = rowCount * COLUMNS * 4;
+        int levelBytes = levelInts * 4;
+        int locationBytes = locationCount * 2 * 4;
+        int offset = 0;
+        this.idNumbers = slice(body, offset, idBytes).asLongBuffer();
+        offset += idBytes;
+        this.stringEnds = slice(body, offset, stringEndsBytes).asIntBuffer();
+        offset += stringEndsBytes;
+        this.columns = slice(body, offset, columnBytes).asIntBuffer();
+        offset += columnBytes;
+        this.levels = slice(body, offset, levelBytes).asIntBuffer();
+        offset += levelBytes;
+        this.locations = slice(body, offset, locationBytes).asIntBuffer();
+        offset += locationBytes;
+        this.stringBytes = slice(body, offset, body.limit() - offset);
+        this.decoded = new String[stringCount];
+        this.locationIndexes = new int[locationCount];
+        Arrays.fill(locationIndexes, -1);
+    }
+
+    /**
+     * Returns the snapshot location inside the app directory.
+     */
+    public static Path defaultPath() {
+        return DatabaseManager.getAppDirectory().resolve(FILE_NAME);
+    }
+
+    /**
+     * Maps the current snapshot, or returns null if there is none, or it is from
+     * another format version or fails its checksum.
+     */
+    public static CatalogSnapshot open(Path file) {
+        Path data = currentData(file);
+        if (data == null || !Files.isRegularFile(data)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            // The mapping outlives the channel, and is released once the rows are collected
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                return null;
+            }
+            int rowCount = mapped.getInt(8);
+            int stringCount = mapped.getInt(12);
+            int levelInts = mapped.getInt(16);
+            int locationCount = mapped.getInt(20);
+            long checksum = mapped.getLong(24);
+
+            ByteBuffer body = slice(mapped, HEADER_BYTES, mapped.limit() - HEADER_BYTES);
+            long minimumBodyBytes = 8L * ID_COLUMNS * rowCount + 4L * stringCount + 4L * COLUMNS * rowCount
+                    + 4L * levelInts + 8L * locationCount;
+            if (rowCount < 0 || stringCount < 0 || levelInts < 0 || locationCount < 0
+                    || body.limit() < minimumBodyBytes) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != checksum) {
+                return null;
+            }
+            return new CatalogSnapshot(body, rowCount, stringCount, levelInts, locationCount);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given rows as a snapshot, replacing any previous file only once
+     * the new one is complete.
+     */
+    public static void write(Path file, List<Product> rows) throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        long[] idNumbers = new long[rows.size() * ID_COLUMNS];
+        int[] columns = new int[rows.size() * COLUMNS];
+        Locations locations = Locations.getInstance();
+        // Snapshot index of each process location, and the reverse, in order of first use
+        int[] snapshotLocations = new int[locations.size()];
+        Arrays.fill(snapshotLocations, -1);
+        List<Integer> usedLocations = new ArrayList<>();
+        int[] levels = new int[0];
+        int levelInts = 0;
+
+        for (int row = 0; row < rows.size(); row++) {
+            Product product = rows.get(row);
+            String[] values = {
+                    product.getId(),
+                    product.getImageUrl(),
+                    product.getProductName(),
+                    product.getSku(),
+                    product.getInventoryItemId()
+            };
+            int base = row * COLUMNS;
+            idNumbers[row * ID_COLUMNS] = ShopifyGid.parse(ShopifyGid.PRODUCT, values[0]);
+            idNumbers[row * ID_COLUMNS + 1] = ShopifyGid.parse(ShopifyGid.INVENTORY_ITEM, values[4]);
+            for (int column = 0; column < values.length; column++) {
+                boolean numeric = (column == 0 && idNumbers[row * ID_COLUMNS] >= 0)
+                        || (column == 4 && idNumbers[row * ID_COLUMNS + 1] >= 0);
+                columns[base + column] = numeric ? -1 : stringIndex(values[column], indexes, strings);
+            }
+            columns[base + 5] = product.getTotalInventory();
+
+            int[] rowLevels = product.getLocationLevels();
+            if (rowLevels != null) {
+                if (levels.length < levelInts + rowLevels.length) {
+                    levels = Arrays.copyOf(levels, Math.max(levels.length * 2, levelInts + rowLevels.length));
+                }
+                for (int i = 0; i < LocationLevels.count(rowLevels); i++) {
+                    int location = LocationLevels.locationAt(rowLevels, i);
+                    if (location >= snapshotLocations.length) {
+                        // Added by a sync since this write started
+                        int known = snapshotLocations.length;
+                        snapshotLocations = Arrays.copyOf(snapshotLocations, locations.size());
+                        Arrays.fill(snapshotLocations, known, snapshotLocations.length, -1);
+                    }
+                    if (snapshotLocations[location] < 0) {
+                        snapshotLocations[location] = usedLocations.size();
+                        usedLocations.add(location);
+                    }
+                    levels[levelInts++] = snapshotLocations[location];
+                    levels[levelInts++] = LocationLevels.availableAt(rowLevels, i);
+                }
+            }
+            columns[base + 6] = levelInts;
+        }
+
+        int[] locationTable = new int[usedLocations.size() * 2];
+        for (int i = 0; i < usedLocations.size(); i++) {
+            locationTable[i * 2] = stringIndex(locations.getId(usedLocations.get(i)), indexes, strings);
+            locationTable[i * 2 + 1] = stringIndex(locations.getName(usedLocations.get(i)), indexes, strings);
+        }
+        int stringBytes = 0;
+        for (byte[] bytes : strings) {
+            stringBytes += bytes.length;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(8 * idNumbers.length + 4 * strings.size() + 4 * columns.length
+                        + 4 * levelInts + 4 * locationTable.length + stringBytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        body.asLongBuffer().put(idNumbers);
+        body.position(8 * idNumbers.length);
+        int end = 0;
+        for (byte[] bytes : strings) {
+            end += bytes.length;
+            body.putInt(end);
+        }
+        body.asIntBuffer().put(columns);
+        body.position(body.position() + 4 * columns.length);
+        body.asIntBuffer().put(levels, 0, levelInts);
+        body.position(body.position() + 4 * levelInts);
+        body.asIntBuffer().put(locationTable);
+        body.position(body.position() + 4 * locationTable.length);
+        for (byte[] bytes : strings) {
+            body.put(bytes);
+        }
+        body.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(rows.size())
+                .putInt(strings.size())
+                .putInt(levelInts)
+                .putInt(usedLocations.size())
+                .putLong(crc.getValue())
+                .flip();
+
+        Path data = file.resolveSibling(file.getFileName() + "." + (lastGeneration(file) + 1));
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, body});
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(data);
+            throw e;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, data.getFileName().toString(), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteData(file, data);
+    }
+
+    /** The data file the pointer names, or null if there is no usable pointer. */
+    private static Path currentData(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String name = Files.readString(file, StandardCharsets.UTF_8).trim();
+            return generationOf(file, name) >= 0 ? file.resolveSibling(name) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** The number of a data file belonging to the pointer, or -1 for any other name. */
+    private static long generationOf(Path file, String name) {
+        String prefix = file.getFileName() + ".";
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() > prefix.length() + 18) {
+            return -1;
+        }
+        long generation = 0;
+        for (int i = prefix.length(); i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            generation = generation * 10 + (c - '0');
+        }
+        return generation;
+    }
+
+    private static long lastGeneration(Path file) throws IOException {
+        long last = 0;
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.toAbsolutePath().getParent())) {
+            for (Path sibling : siblings) {
+                last = Math.max(last, generationOf(file, sibling.getFileName().toString()));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Deletes the pointer's data files other than {@code keep}. A file still mapped
+     * may refuse, on Windows; it is no longer pointed to and a later call removes it.
+     */
+    private static void deleteData(Path file, Path keep) {
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.toAbsolutePath().getParent())) {
+            for (Path sibling : siblings) {
+                if (generationOf(file, sibling.getFileName().toString()) >= 0
+                        && (keep == null || !sibling.getFileName().equals(keep.getFileName()))) {
+                    try {
+                        Files.deleteIfExists(sibling);
+                    } catch (IOException e) {
+                        // Still mapped; retried by the next write
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Only leftovers; nothing points to them
+        }
+    }
+
+    /** The index of a string in the table being written, adding it if new; null is stored as "". */
+    private static int stringIndex(String value, Map<String, Integer> indexes, List<byte[]> strings) {
+        String key = value != null ? value : "";
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = strings.size();
+            indexes.put(key, index);
+            strings.add(key.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    /**
+     * Removes a snapshot if present. The pointer goes first, so even a data file
+     * that is still mapped is never opened again.
+     */
+    public static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // A stale snapshot is only ever a cache; the next sync overwrites it
+        }
+        deleteData(file, null);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public long getIdNumber(int row) { return idNumbers.get(row * ID_COLUMNS); }
+    @Override
+    public long getInventoryItemIdNumber(int row) { return idNumbers.get(row * ID_COLUMNS + 1); }
+
+    @Override
+    public String getId(int row) {
+        long id = getIdNumber(row);
+        return id >= 0 ? ShopifyGid.format(ShopifyGid.PRODUCT, id) : string(row, 0);
+    }
+
+    @Override
+    public String getInventoryItemId(int row) {
+        long id = getInventoryItemIdNumber(row);
+        return id >= 0 ? ShopifyGid.format(ShopifyGid.INVENTORY_ITEM, id) : string(row, 4);
+    }
+
+    @Override
+    public String getImageUrl(int row) { return string(row, 1); }
+    @Override
+    public String getProductName(int row) { return string(row, 2); }
+    @Override
+    public String getSku(int row) { return string(row, 3); }
+    @Override
+    public int getTotal(int row) { return columns.get(row * COLUMNS + 5); }
+
+    /**
+     * The row's per-location quantities, packed as {@link LocationLevels} with
+     * process-wide location indexes, or null if it has none.
+     */
+    @Override
+    public int[] getLocationLevels(int row) {
+        int start = row == 0 ? 0 : columns.get((row - 1) * COLUMNS + 6);
+        int end = columns.get(row * COLUMNS + 6);
+        if (start == end) {
+            return null;
+        }
+        int[] rowLevels = LocationLevels.EMPTY;
+        for (int i = start; i < end; i += 2) {
+            rowLevels = LocationLevels.add(rowLevels, location(levels.get(i)), levels.get(i + 1));
+        }
+        return rowLevels;
+    }
+
+    /**
+     * Returns products viewing every row; strings are decoded as rows first need them,
+     * and variants of one product share them. The snapshot's locations are known
+     * right away, so they can be offered before any row's quantities are read.
+     */
+    public List<Product> toProducts() {
+        for (int i = 0; i < locationIndexes.length; i++) {
+            location(i);
+        }
+        return ProductStore.viewOf(this);
+    }
+
+    private int location(int snapshotLocation) {
+        int index = locationIndexes[snapshotLocation];
+        if (index < 0) {
+            index = Locations.getInstance().intern(
+                    string(locations.get(snapshotLocation * 2)), string(locations.get(snapshotLocation * 2 + 1)));
+            locationIndexes[snapshotLocation] = index;
+        }
+        return index;
+    }
+
+    private String string(int row, int column) {
+        return string(columns.get(row * COLUMNS + column));
+    }
+
+    private String string(int index) {
+        String value = decoded[index];
+        if (value == null) {
+            int start = index == 0 ? 0 : stringEnds.get(index - 1);
+            int length = stringEnds.get(index) - start;
+            byte[] bytes = new byte[length];
+            stringBytes.get(start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            decoded[index] = value;
+        }
+        return value;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        return buffer.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -14,29 +14,54 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+
 /**
- * Manages SQLite database operations for storing encrypted credentials.
+ * Manages SQLite database operations for storing encrypted credentials and the
+ * locally cached product catalog.
  */
 public class DatabaseManager {
     private static final String DB_URL = getDbUrl();
     private static final String ENCRYPTION_KEY_ENV = "INVENTORYFLOW_SECRET";
     private static final int GCM_TAG_LENGTH = 128;
     private static final int GCM_IV_LENGTH = 12;
+    private static final int CATALOG_BATCH_SIZE = 1000;
+    private static final String DELETE_LEVELS = "DELETE FROM inventory_levels WHERE inventory_item_id = ?";
+    private static final String INSERT_LEVEL =
+            "INSERT INTO inventory_levels (inventory_item_id, location_id, available) VALUES (?, ?, ?)";
 
     private static String getDbUrl() {
+        return "jdbc:sqlite:" + getAppDirectory().resolve("inventoryflow.db").toString();
+    }
+
+    /**
+     * Returns the per-user directory holding the database and local caches, creating it if needed.
+     */
+    public static Path getAppDirectory() {
         Path appDir = Paths.get(System.getProperty("user.home"), ".inventoryflow");
         try {
             Files.createDirectories(appDir);
         } catch (IOException e) {
             throw new RuntimeException("Failed to create app directory: " + appDir, e);
         }
-        return "jdbc:sqlite:" + appDir.resolve("inventoryflow.db").toString();
+        return appDir;
     }
 
     private static DatabaseManager instance;
@@ -74,8 +99,58 @@ public class DatabaseManager {
             )
             """;
 
+        // Catalog cache: one row per product and per variant, keyed by inventory item ID,
+        // with stock kept apart so quantity refreshes touch only that table
+        String createProductsTable = """
+            CREATE TABLE IF NOT EXISTS products (
+                id TEXT PRIMARY KEY,
+                title TEXT,
+                image_url TEXT,
+                position INTEGER NOT NULL
+            )
+            """;
+
+        String createVariantsTable = """
+            CREATE TABLE IF NOT EXISTS variants (
+                inventory_item_id TEXT PRIMARY KEY,
+                product_id TEXT NOT NULL,
+                sku TEXT,
+                position INTEGER NOT NULL
+            )
+            """;
+
+        String createInventoryTable = """
+            CREATE TABLE IF NOT EXISTS inventory (
+                inventory_item_id TEXT PRIMARY KEY,
+                available INTEGER NOT NULL
+            )
+            """;
+
+        // Per-location quantities of the variants that have them; inventory keeps the total
+        String createLocationsTable = """
+            CREATE TABLE IF NOT EXISTS locations (
+                id TEXT PRIMARY KEY,
+                name TEXT
+            )
+            """;
+
+        String createInventoryLevelsTable = """
+            CREATE TABLE IF NOT EXISTS inventory_levels (
+                inventory_item_id TEXT NOT NULL,
+                location_id TEXT NOT NULL,
+                available INTEGER NOT NULL,
+                PRIMARY KEY (inventory_item_id, location_id)
+            )
+            """;
+
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(createSettingsTable);
+            stmt.execute(createProductsTable);
+            stmt.execute(createVariantsTable);
+            stmt.execute(createInventoryTable);
+            stmt.execute(createLocationsTable);
+            stmt.execute(createInventoryLevelsTable);
+            stmt.execute("CREATE INDEX IF NOT EXISTS variants_by_product ON variants (product_id)");
         }
     }
 
@@ -128,6 +203,16 @@ public class DatabaseManager {
      * Stores the Shopify store domain.
      */
     public void storeShopifyDomain(String domain) {
+        if (!domain.equals(getShopifyDomain())) {
+            // A sync watermark from another store would make delta syncs skip changes
+            deleteSetting("last_sync_at");
+            deleteSetting("last_full_sync_at");
+            deleteSetting("catalog_size");
+            clearCatalog();
+            CatalogSnapshot.delete(CatalogSnapshot.defaultPath());
+            // Location indexes only make sense for the store whose catalog was just dropped
+            Locations.getInstance().clear();
+        }
         storeSetting("shopify_domain", domain);
     }
 
@@ -145,7 +230,390 @@ public class DatabaseManager {
         return getShopifyToken() != null && getShopifyDomain() != null;
     }
 
-    private void storeSetting(String key, String value) {
+    /**
+     * Stores the start time of the last successful sync, used as the delta sync watermark.
+     */
+    public void storeLastSyncTime(Instant time) {
+        storeSetting("last_sync_at", time.toString());
+    }
+
+    /**
+     * Retrieves the delta sync watermark, or null if no sync has completed yet.
+     */
+    public Instant getLastSyncTime() {
+        String value = getSetting("last_sync_at");
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the start time of the last successful full sync. Delta syncs can't see
+     * deleted products, so a full sync is due again once this gets old.
+     */
+    public void storeLastFullSyncTime(Instant time) {
+        storeSetting("last_full_sync_at", time.toString());
+    }
+
+    /**
+     * Retrieves the start time of the last full sync, or null if none has completed yet.
+     */
+    public Instant getLastFullSyncTime() {
+        String value = getSetting("last_full_sync_at");
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the number of rows seen by the last full sync, used to pick a sync engine.
+     */
+    public void storeCatalogSize(int size) {
+        storeSetting("catalog_size", Integer.toString(size));
+    }
+
+    /**
+     * Retrieves the row count of the last full sync, or 0 if unknown.
+     */
+    public int getCatalogSize() {
+        String value = getSetting("catalog_size");
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Stores how many catalog partitions a full sync fetches concurrently.
+     */
+    public void storeSyncConcurrency(int concurrency) {
+        storeSetting("sync_concurrency", Integer.toString(concurrency));
+    }
+
+    /**
+     * Retrieves the sync concurrency level, defaulting to 4.
+     */
+    public int getSyncConcurrency() {
+        String value = getSetting("sync_concurrency");
+        if (value == null) {
+            return 4;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 4;
+        }
+    }
+
+    /**
+     * Loads the cached catalog as one row per variant, in the order it was last synced,
+     * with the per-location quantities of the variants that have them.
+     */
+    public synchronized List<Product> loadCatalog() {
+        Map<String, int[]> locationLevels = loadLocationLevels();
+        String sql = """
+            SELECT p.id, p.image_url, p.title, v.sku, i.available, v.inventory_item_id
+            FROM variants v
+            JOIN products p ON p.id = v.product_id
+            LEFT JOIN inventory i ON i.inventory_item_id = v.inventory_item_id
+            ORDER BY p.position, v.position
+            """;
+        List<Product> rows = new ArrayList<>();
+        ProductStore store = new ProductStore(getCatalogSize());
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            String productId = null;
+            String imageUrl = null;
+            String title = null;
+            while (rs.next()) {
+                String id = rs.getString(1);
+                if (!id.equals(productId)) {
+                    // Variants of one product share its title and image strings
+                    productId = id;
+                    imageUrl = rs.getString(2);
+                    title = rs.getString(3);
+                }
+                String inventoryItemId = rs.getString(6);
+                int[] levels = inventoryItemId != null ? locationLevels.get(inventoryItemId) : null;
+                rows.add(levels != null
+                        ? store.add(productId, imageUrl, title, rs.getString(4), levels, inventoryItemId)
+                        : store.add(productId, imageUrl, title, rs.getString(4), rs.getInt(5), inventoryItemId));
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load cached catalog", e);
+        }
+    }
+
+    private Map<String, int[]> loadLocationLevels() {
+        String sql = """
+            SELECT l.inventory_item_id, l.location_id, loc.name, l.available
+            FROM inventory_levels l
+            LEFT JOIN locations loc ON loc.id = l.location_id
+            """;
+        Map<String, int[]> levels = new HashMap<>();
+        Map<String, Integer> locationIndexes = new HashMap<>();
+        Locations locations = Locations.getInstance();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String locationId = rs.getString(2);
+                Integer location = locationIndexes.get(locationId);
+                if (location == null) {
+                    location = locations.intern(locationId, rs.getString(3));
+                    locationIndexes.put(locationId, location);
+                }
+                String inventoryItemId = rs.getString(1);
+                levels.put(inventoryItemId, LocationLevels.add(
+                        levels.getOrDefault(inventoryItemId, LocationLevels.EMPTY), location, rs.getInt(4)));
+            }
+            return levels;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load cached inventory levels", e);
+        }
+    }
+
+    /**
+     * Replaces the cached catalog with the rows of a full sync.
+     */
+    public synchronized void replaceCatalog(List<Product> rows) {
+        inTransaction("Failed to store catalog", () -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM products");
+                stmt.execute("DELETE FROM variants");
+                stmt.execute("DELETE FROM inventory");
+                stmt.execute("DELETE FROM inventory_levels");
+            }
+            writeRows(rows, 0);
+        });
+    }
+
+    /**
+     * Replaces the cached rows of every product present in the given rows, as delivered
+     * by a delta sync. Products already cached keep their position; new ones are
+     * appended to the end.
+     */
+    public synchronized void upsertProducts(List<Product> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        inTransaction("Failed to update cached catalog", () -> {
+            Set<String> productIds = new LinkedHashSet<>();
+            for (Product row : rows) {
+                productIds.add(row.getId());
+            }
+            String deleteLevels = """
+                DELETE FROM inventory_levels WHERE inventory_item_id IN
+                    (SELECT inventory_item_id FROM variants WHERE product_id = ?)
+                """;
+            String deleteVariants = "DELETE FROM variants WHERE product_id = ?";
+            try (PreparedStatement levels = connection.prepareStatement(deleteLevels);
+                 PreparedStatement variants = connection.prepareStatement(deleteVariants)) {
+                int pending = 0;
+                for (String productId : productIds) {
+                    levels.setString(1, productId);
+                    levels.addBatch();
+                    variants.setString(1, productId);
+                    variants.addBatch();
+                    if (++pending == CATALOG_BATCH_SIZE) {
+                        levels.executeBatch();
+                        variants.executeBatch();
+                        pending = 0;
+                    }
+                }
+                levels.executeBatch();
+                variants.executeBatch();
+            }
+
+            long nextPosition = 0;
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(position), -1) + 1 FROM products")) {
+                if (rs.next()) {
+                    nextPosition = rs.getLong(1);
+                }
+            }
+            writeRows(rows, nextPosition);
+        });
+    }
+
+    /**
+     * Stores refreshed per-location quantities, packed as {@link LocationLevels} and
+     * keyed by inventory item ID, along with their totals.
+     */
+    public synchronized void updateLocationLevels(Map<String, int[]> levels) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        inTransaction("Failed to update cached inventory", () -> {
+            String sql = "INSERT OR REPLACE INTO inventory (inventory_item_id, available) VALUES (?, ?)";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql);
+                 PreparedStatement deleteLevels = connection.prepareStatement(DELETE_LEVELS);
+                 PreparedStatement insertLevel = connection.prepareStatement(INSERT_LEVEL)) {
+                int pending = 0;
+                for (Map.Entry<String, int[]> level : levels.entrySet()) {
+                    pstmt.setString(1, level.getKey());
+                    pstmt.setInt(2, LocationLevels.total(level.getValue()));
+                    pstmt.addBatch();
+                    deleteLevels.setString(1, level.getKey());
+                    deleteLevels.addBatch();
+                    pending += addLevels(insertLevel, level.getKey(), level.getValue());
+                    if (++pending >= CATALOG_BATCH_SIZE) {
+                        pstmt.executeBatch();
+                        deleteLevels.executeBatch();
+                        insertLevel.executeBatch();
+                        pending = 0;
+                    }
+                }
+                pstmt.executeBatch();
+                deleteLevels.executeBatch();
+                insertLevel.executeBatch();
+            }
+            writeLocations();
+        });
+    }
+
+    /**
+     * Removes every cached product, variant and inventory row.
+     */
+    public synchronized void clearCatalog() {
+        inTransaction("Failed to clear cached catalog", () -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM products");
+                stmt.execute("DELETE FROM variants");
+                stmt.execute("DELETE FROM inventory");
+                stmt.execute("DELETE FROM inventory_levels");
+            }
+        });
+    }
+
+    /**
+     * Writes catalog rows with batched upserts. Products are positioned from
+     * {@code firstPosition} in the order they first appear; an existing product keeps
+     * its position and only has its title and image updated. Per-location quantities
+     * are inserted, so callers clear the ones of replaced variants first.
+     */
+    private void writeRows(List<Product> rows, long firstPosition) throws SQLException {
+        String upsertProduct = """
+            INSERT INTO products (id, title, image_url, position) VALUES (?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET title = excluded.title, image_url = excluded.image_url
+            """;
+        String insertVariant =
+                "INSERT OR REPLACE INTO variants (inventory_item_id, product_id, sku, position) VALUES (?, ?, ?, ?)";
+        String insertInventory = "INSERT OR REPLACE INTO inventory (inventory_item_id, available) VALUES (?, ?)";
+
+        try (PreparedStatement products = connection.prepareStatement(upsertProduct);
+             PreparedStatement variants = connection.prepareStatement(insertVariant);
+             PreparedStatement inventory = connection.prepareStatement(insertInventory);
+             PreparedStatement levels = connection.prepareStatement(INSERT_LEVEL)) {
+            long position = firstPosition;
+            String lastProductId = null;
+            int pending = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                Product row = rows.get(i);
+                if (!row.getId().equals(lastProductId)) {
+                    lastProductId = row.getId();
+                    products.setString(1, row.getId());
+                    products.setString(2, row.getProductName());
+                    products.setString(3, row.getImageUrl());
+                    products.setLong(4, position++);
+                    products.addBatch();
+                }
+                variants.setString(1, row.getInventoryItemId());
+                variants.setString(2, row.getId());
+                variants.setString(3, row.getSku());
+                variants.setInt(4, i);
+                variants.addBatch();
+                inventory.setString(1, row.getInventoryItemId());
+                inventory.setInt(2, row.getTotalInventory());
+                inventory.addBatch();
+                int[] locationLevels = row.getLocationLevels();
+                if (locationLevels != null) {
+                    pending += addLevels(levels, row.getInventoryItemId(), locationLevels);
+                }
+
+                if (++pending >= CATALOG_BATCH_SIZE) {
+                    products.executeBatch();
+                    variants.executeBatch();
+                    inventory.executeBatch();
+                    levels.executeBatch();
+                    pending = 0;
+                }
+            }
+            products.executeBatch();
+            variants.executeBatch();
+            inventory.executeBatch();
+            levels.executeBatch();
+        }
+        writeLocations();
+    }
+
+    /** Batches one insert per location of an item and returns how many. */
+    private static int addLevels(PreparedStatement insertLevel, String inventoryItemId, int[] levels)
+            throws SQLException {
+        Locations locations = Locations.getInstance();
+        for (int i = 0; i < LocationLevels.count(levels); i++) {
+            insertLevel.setString(1, inventoryItemId);
+            insertLevel.setString(2, locations.getId(LocationLevels.locationAt(levels, i)));
+            insertLevel.setInt(3, LocationLevels.availableAt(levels, i));
+            insertLevel.addBatch();
+        }
+        return LocationLevels.count(levels);
+    }
+
+    /** Stores the ID and current name of every location seen so far; there are only a handful. */
+    private void writeLocations() throws SQLException {
+        String sql = """
+            INSERT INTO locations (id, name) VALUES (?, ?)
+            ON CONFLICT (id) DO UPDATE SET name = excluded.name
+            """;
+        Locations locations = Locations.getInstance();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < locations.size(); i++) {
+                pstmt.setString(1, locations.getId(i));
+                pstmt.setString(2, locations.getName(i));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    private void inTransaction(String failureMessage, SqlWork work) {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                work.run();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(failureMessage, e);
+        }
+    }
+
+    private synchronized void storeSetting(String key, String value) {
         String sql = "INSERT OR REPLACE INTO settings (key, value) VALUES (?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, key);
@@ -156,7 +624,7 @@ public class DatabaseManager {
         }
     }
 
-    private String getSetting(String key) {
+    private synchronized String getSetting(String key) {
         String sql = "SELECT value FROM settings WHERE key = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, key);
@@ -170,6 +638,16 @@ public class DatabaseManager {
         }
     }
 
+    private synchronized void deleteSetting(String key) {
+        String sql = "DELETE FROM settings WHERE key = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, key);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to delete setting: " + key, e);
+        }
+    }
+
     private String hashPin(String pin) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
@@ -199,16 +199,49 @@ public class HelpDialog {
         content.setStyle("-fx-background-color: " + DARK_BG + ";");
 
         content.getChildren().add(createHelpSection("🔍 Search",
-                "Type in the search bar to filter products by SKU or product name."));
+                "Type in the search bar to filter products by SKU or product name. " +
+                "Combine terms to narrow it down: sku:ABC-* matches SKUs starting with ABC-, " +
+                "name:\"tee\" searches names only, and inventory<10 compares stock " +
+                "(also <=, >, >=, =, !=)."));
 
         content.getChildren().add(createHelpSection("🔄 Sync",
-                "Click the Sync button to refresh inventory data from Shopify."));
+                "Click the Sync button to fetch only what changed since the last sync. " +
+                "Use Full Sync to reload the entire catalog from Shopify, or Refresh Stock " +
+                "to update just the inventory counts of the products already listed.\n" +
+                "Products deleted in Shopify only disappear after a full sync. Sync runs one " +
+                "by itself once a day; use Full Sync to remove them right away.\n" +
+                "Large catalogs are fetched in several parts at once; set how many with " +
+                "Parallel requests at the bottom. Fewer is gentler on a busy store."));
+
+        content.getChildren().add(createHelpSection("↕ Sorting",
+                "Click a column header to sort by it, again to reverse, and a third time " +
+                "to go back to sync order. Shift-click another header to break ties. " +
+                "Names and SKUs sort alphabetically for your language, ignoring case."));
+
+        content.getChildren().add(createHelpSection("📍 Locations",
+                "Pick a location next to the search box to show the stock held there " +
+                "instead of the total. Inventory searches, sorting, the grouped view, " +
+                "Reorder and the footer counts all follow the location you pick.\n" +
+                "Choose All locations to go back to totals."));
+
+        content.getChildren().add(createHelpSection("🗂 Group by Product",
+                "Turn on Group by Product to list each product once with its total " +
+                "inventory. Expand a product to see its variants."));
+
+        content.getChildren().add(createHelpSection("📦 Reorder",
+                "Click Reorder to list the variants with the least stock, lowest first. " +
+                "Choose how many to show and the stock level below which a variant " +
+                "counts. Click one to find it in the table."));
 
         content.getChildren().add(createHelpSection("📊 Inventory Colors",
                 "• Green: 10+ items in stock\n" +
                 "• Orange: Low stock (1-9 items)\n" +
                 "• Red: Out of stock (0 items)"));
 
+        content.getChildren().add(createHelpSection("⏱ Frame Times",
+                "Press F3 on the dashboard to show the frame rate and slowest frame " +
+                "while scrolling. Press F3 again to hide it."));
+
         content.getChildren().add(createHelpSection("🔐 Security",
                 "Your Shopify token is encrypted and stored locally. " +
                 "Your PIN is hashed and never stored in plain text."));
@@ -0,0 +1,238 @@
+package com.inventoryflow.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.scene.image.Image;
+
+/**
+ * Two-tier cache for product thumbnails, keyed by image URL. Decoded 50x50 images
+ * are kept in a bounded in-memory LRU; the downloaded thumbnail bytes are kept on
+ * disk under {@code ~/.inventoryflow/images}, so an image is fetched from the
+ * network once and survives restarts. Concurrent requests for the same URL share
+ * one load.
+ */
+public final class ImageCache {
+
+    public static final int THUMBNAIL_SIZE = 50;
+
+    private static final int DEFAULT_MEMORY_ENTRIES = 1000;
+    private static final long MAX_DISK_BYTES = 256L * 1024 * 1024;
+    private static final int LOADER_THREADS = 4;
+
+    private static ImageCache instance;
+
+    private final Path directory;
+    private final Map<String, Image> memory;
+    private final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    private final ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "image-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImageCache(Path directory, int memoryEntries) {
+        this.directory = directory;
+        this.memory = new LinkedHashMap<>(memoryEntries, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        loader.execute(this::trimDisk);
+    }
+
+    public static synchronized ImageCache getInstance() {
+        if (instance == null) {
+            instance = new ImageCache(DatabaseManager.getAppDirectory().resolve("images"), DEFAULT_MEMORY_ENTRIES);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the decoded thumbnail if it is in memory, without loading it.
+     */
+    public Image getIfPresent(String url) {
+        synchronized (memory) {
+            return memory.get(url);
+        }
+    }
+
+    /**
+     * Returns the thumbnail for a URL, reading it from memory, then disk, then the
+     * network, and decoding it off the calling thread.
+     */
+    public CompletableFuture<Image> load(String url) {
+        Image cached = getIfPresent(url);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Image> pending = inFlight.get(url);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        pending = inFlight.putIfAbsent(url, future);
+        if (pending != null) {
+            return pending;
+        }
+        loader.execute(() -> {
+            try {
+                loadInto(url, future);
+            } catch (Exception e) {
+                // Already reported through the future
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Returns the thumbnail for a URL, loading it on the calling thread if it is not
+     * in memory. A load of the same URL already under way is waited for instead of
+     * being repeated.
+     */
+    public Image get(String url) throws IOException, InterruptedException {
+        Image cached = getIfPresent(url);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        CompletableFuture<Image> pending = inFlight.putIfAbsent(url, future);
+        if (pending != null) {
+            try {
+                return pending.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to load image: " + url, e.getCause());
+            }
+        }
+        return loadInto(url, future);
+    }
+
+    private Image loadInto(String url, CompletableFuture<Image> future) throws IOException, InterruptedException {
+        try {
+            Image image = fetch(url);
+            synchronized (memory) {
+                memory.put(url, image);
+            }
+            future.complete(image);
+            return image;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(url);
+        }
+    }
+
+    private Image fetch(String url) throws IOException, InterruptedException {
+        Path file = directory.resolve(fileName(url));
+        boolean fromDisk = Files.isRegularFile(file);
+        byte[] bytes = fromDisk ? Files.readAllBytes(file) : download(url);
+
+        Image image = new Image(new ByteArrayInputStream(bytes), THUMBNAIL_SIZE, THUMBNAIL_SIZE, true, true);
+        if (image.isError()) {
+            Files.deleteIfExists(file);
+            throw new IOException("Failed to decode image: " + url, image.getException());
+        }
+        if (!fromDisk) {
+            store(file, bytes);
+        }
+        return image;
+    }
+
+    private byte[] download(String url) throws IOException, InterruptedException {
+        // Ask the CDN for a small rendition; twice the cell size keeps HiDPI screens sharp
+        String thumbnailUrl = url.contains("?") ? url + "&width=100" : url + "?width=100";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(thumbnailUrl))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Image request failed with HTTP " + response.statusCode() + ": " + url);
+        }
+        return response.body();
+    }
+
+    private void store(Path file, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "thumb", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The disk tier is only a cache; the image is still served from memory
+        }
+    }
+
+    /**
+     * Deletes the oldest thumbnails once the disk tier grows past its budget.
+     */
+    private void trimDisk() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                attributes.put(file, attrs);
+                total += attrs.size();
+            }
+            if (total <= MAX_DISK_BYTES) {
+                return;
+            }
+            List<Path> files = new ArrayList<>(attributes.keySet());
+            files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+            for (Path file : files) {
+                if (total <= MAX_DISK_BYTES) {
+                    break;
+                }
+                total -= attributes.get(file).size();
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // Try again next launch
+        }
+    }
+
+    private static String fileName(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.inventoryflow.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.inventoryflow.model.Product;
+
+/**
+ * Search box filter language. A query is a list of terms that must all match:
+ * <ul>
+ *   <li>{@code tee} or {@code "classic tee"} - SKU or product name contains the text</li>
+ *   <li>{@code sku:ABC} / {@code name:tee} - that field contains the text</li>
+ *   <li>{@code sku:ABC-*} - that field starts with the text</li>
+ *   <li>{@code inventory<10} - compares the inventory level, with {@code < <= > >= = !=}</li>
+ * </ul>
+ * Matching ignores case. A term that doesn't parse as a field or comparison is
+ * searched as plain text, so a half-typed query still filters sensibly.
+ *
+ * <p>A query is parsed once, then compiled against a {@link ProductSearchIndex}: text
+ * terms become index lookups, field terms use the index to narrow candidates before
+ * checking the field itself, and comparisons read the primitive inventory value.
+ * The compiled terms run cheapest first.
+ */
+public final class ProductFilter {
+
+    private static final Pattern COMPARISON =
+            Pattern.compile("(?i)(inventory|inv|stock)(<=|>=|!=|<|>|=)(-?\\d{1,9})");
+
+    private enum Field { ANY, SKU, NAME }
+
+    private final List<Term> terms;
+
+    private ProductFilter(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Parses a query; an empty or blank query matches everything.
+     */
+    public static ProductFilter parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        for (String token : tokenize(query == null ? "" : query)) {
+            terms.add(parseTerm(token));
+        }
+        return new ProductFilter(terms);
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    /**
+     * Compiles the filter into a predicate, or returns null if {@code cancelled}
+     * reports that a newer query superseded this one while the index was searched.
+     */
+    public Predicate<Product> prepare(ProductSearchIndex index, BooleanSupplier cancelled) {
+        if (terms.isEmpty()) {
+            return product -> true;
+        }
+        List<Term> ordered = new ArrayList<>(terms);
+        ordered.sort(Comparator.comparingInt(Term::cost));
+
+        List<Predicate<Product>> compiled = new ArrayList<>(ordered.size());
+        for (Term term : ordered) {
+            Predicate<Product> predicate = term.compile(index, cancelled);
+            if (predicate == null) {
+                return null;
+            }
+            compiled.add(predicate);
+        }
+        if (compiled.size() == 1) {
+            return compiled.get(0);
+        }
+        // Cheapest first, so most rows are rejected before the costly terms run
+        List<Predicate<Product>> all = List.copyOf(compiled);
+        return product -> {
+            for (Predicate<Product> predicate : all) {
+                if (!predicate.test(product)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Splits on whitespace outside double quotes; quotes are dropped, so
+     * {@code name:"classic tee"} is one token.
+     */
+    private static List<String> tokenize(String query) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean hadQuotes = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                hadQuotes = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (token.length() > 0 || hadQuotes) {
+                    tokens.add(token.toString());
+                }
+                token.setLength(0);
+                hadQuotes = false;
+            } else {
+                token.append(c);
+            }
+        }
+        if (token.length() > 0 || hadQuotes) {
+            tokens.add(token.toString());
+        }
+        tokens.removeIf(String::isEmpty);
+        return tokens;
+    }
+
+    private static Term parseTerm(String token) {
+        Matcher comparison = COMPARISON.matcher(token);
+        if (comparison.matches()) {
+            return new InventoryTerm(comparison.group(2), Integer.parseInt(comparison.group(3)));
+        }
+        int colon = token.indexOf(':');
+        if (colon > 0 && colon < token.length() - 1) {
+            String field = token.substring(0, colon).toLowerCase(Locale.ROOT);
+            String text = token.substring(colon + 1);
+            if (field.equals("sku")) {
+                return TextTerm.of(Field.SKU, text);
+            }
+            if (field.equals("name")) {
+                return TextTerm.of(Field.NAME, text);
+            }
+        }
+        return new TextTerm(Field.ANY, token, false);
+    }
+
+    private interface Term {
+        /** Rough per-row cost, used to run cheap terms first. */
+        int cost();
+
+        Predicate<Product> compile(ProductSearchIndex index, BooleanSupplier cancelled);
+    }
+
+    private static final class InventoryTerm implements Term {
+        private final String operator;
+        private final int value;
+
+        InventoryTerm(String operator, int value) {
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+
+        @Override
+        public Predicate<Product> compile(ProductSearchIndex index, BooleanSupplier cancelled) {
+            int bound = value;
+            switch (operator) {
+                case "<":
+                    return product -> product.getInventoryLevel() < bound;
+                case "<=":
+                    return product -> product.getInventoryLevel() <= bound;
+                case ">":
+                    return product -> product.getInventoryLevel() > bound;
+                case ">=":
+                    return product -> product.getInventoryLevel() >= bound;
+                case "!=":
+                    return product -> product.getInventoryLevel() != bound;
+                default:
+                    return product -> product.getInventoryLevel() == bound;
+            }
+        }
+    }
+
+    private static final class TextTerm implements Term {
+        private final Field field;
+        private final String text;
+        private final boolean prefix;
+
+        TextTerm(Field field, String text, boolean prefix) {
+            this.field = field;
+            this.text = text;
+            this.prefix = prefix;
+        }
+
+        static TextTerm of(Field field, String text) {
+            boolean prefix = text.length() > 1 && text.endsWith("*");
+            return new TextTerm(field, prefix ? text.substring(0, text.length() - 1) : text, prefix);
+        }
+
+        @Override
+        public int cost() {
+            return field == Field.ANY ? 1 : 2;
+        }
+
+        @Override
+        public Predicate<Product> compile(ProductSearchIndex index, BooleanSupplier cancelled) {
+            // The index matches the text anywhere in SKU or name, which is exactly a plain
+            // text term and a superset of every field term
+            Predicate<Product> candidates = index.prepare(text, cancelled);
+            if (candidates == null || field == Field.ANY) {
+                return candidates;
+            }
+            String needle = text;
+            boolean sku = field == Field.SKU;
+            if (prefix) {
+                return product -> candidates.test(product)
+                        && startsWithIgnoreCase(sku ? product.getSku() : product.getProductName(), needle);
+            }
+            return product -> candidates.test(product)
+                    && containsIgnoreCase(sku ? product.getSku() : product.getProductName(), needle);
+        }
+    }
+
+    private static boolean startsWithIgnoreCase(String value, String needle) {
+        return value != null && value.regionMatches(true, 0, needle, 0, needle.length());
+    }
+
+    private static boolean containsIgnoreCase(String value, String needle) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i + needle.length() <= value.length(); i++) {
+            if (value.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
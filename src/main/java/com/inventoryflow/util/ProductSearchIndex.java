@@ -0,0 +1,329 @@
+package com.inventoryflow.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import com.inventoryflow.model.Product;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Trigram index over SKU and product name for substring search. Each product gets a
+ * document ID and a lowercase key computed once when it is added; a query looks up
+ * the posting lists of its trigrams, intersects them and checks the surviving
+ * candidates against their keys, so typing never lowercases the catalog again.
+ *
+ * <p>Each product also carries its document ID, so testing a row against a search
+ * is an array read rather than a map lookup; the index still keeps its own map for
+ * products whose ID was taken over by another index.
+ *
+ * <p>Document IDs only ever grow, which keeps posting lists sorted. Removed products
+ * leave stale entries behind that the key check skips, and the index is rebuilt
+ * once they outnumber the live ones.
+ *
+ * <p>The index is only changed on the FX thread, but searches may run on a background
+ * thread through {@link #prepare}; changes and searches are serialized on the index.
+ */
+public final class ProductSearchIndex {
+
+    private static final int MIN_COMPACT_DEAD = 1024;
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    private final Map<Product, Integer> docIds = new IdentityHashMap<>();
+    private final List<Product> docs = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int dead;
+    // Bumped whenever document IDs are reassigned, which invalidates earlier search results
+    private int generation;
+
+    /**
+     * Indexes the current contents of a list and keeps following its changes. Attach
+     * before creating views such as a FilteredList over the list, so rows are indexed
+     * by the time those views test them.
+     */
+    public void attach(ObservableList<Product> list) {
+        addAll(list);
+        list.addListener((ListChangeListener<Product>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                if (change.wasUpdated()) {
+                    for (int i = change.getFrom(); i < change.getTo(); i++) {
+                        reindex(change.getList().get(i));
+                    }
+                    continue;
+                }
+                if (change.wasRemoved()) {
+                    if (change.getRemovedSize() == docIds.size()) {
+                        clear();
+                    } else {
+                        for (Product product : change.getRemoved()) {
+                            remove(product);
+                        }
+                    }
+                }
+                if (change.wasAdded()) {
+                    addAll(change.getAddedSubList());
+                }
+            }
+            if (dead >= MIN_COMPACT_DEAD && dead > docIds.size()) {
+                compact();
+            }
+        });
+    }
+
+    public synchronized void addAll(List<? extends Product> products) {
+        for (Product product : products) {
+            add(product);
+        }
+    }
+
+    public synchronized void add(Product product) {
+        if (docIds.containsKey(product)) {
+            return;
+        }
+        int docId = docs.size();
+        String key = keyOf(product);
+        docIds.put(product, docId);
+        product.setSearchDoc(docId);
+        docs.add(product);
+        keys.add(key);
+        indexKey(docId, key);
+    }
+
+    public synchronized void remove(Product product) {
+        Integer docId = docIds.remove(product);
+        if (docId != null) {
+            if (product.getSearchDoc() == docId) {
+                product.setSearchDoc(-1);
+            }
+            docs.set(docId, null);
+            keys.set(docId, null);
+            dead++;
+        }
+    }
+
+    /**
+     * Re-reads the SKU and name of a product edited in place; a product whose key is
+     * unchanged keeps its document.
+     */
+    public synchronized void reindex(Product product) {
+        Integer docId = docIds.get(product);
+        if (docId != null && keys.get(docId).equals(keyOf(product))) {
+            return;
+        }
+        remove(product);
+        add(product);
+    }
+
+    public synchronized void clear() {
+        docIds.clear();
+        docs.clear();
+        keys.clear();
+        postings.clear();
+        dead = 0;
+        generation++;
+    }
+
+    /**
+     * Returns a predicate matching products whose SKU or name contains the query,
+     * ignoring case. The matches are computed up front, so testing a row is a lookup;
+     * rows indexed after that are checked against their key instead.
+     */
+    public Predicate<Product> matcher(String query) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return product -> true;
+        }
+        return new Matcher(needle, () -> false);
+    }
+
+    /**
+     * Like {@link #matcher}, but meant to run off the FX thread: the search gives up
+     * and returns null as soon as {@code cancelled} reports that a newer query
+     * superseded this one.
+     */
+    public Predicate<Product> prepare(String query, BooleanSupplier cancelled) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return product -> true;
+        }
+        Matcher matcher = new Matcher(needle, cancelled);
+        return matcher.hits != null ? matcher : null;
+    }
+
+    /**
+     * Returns the document IDs whose key contains an already normalized query, or
+     * null if cancelled along the way.
+     */
+    synchronized BitSet search(String needle, BooleanSupplier cancelled) {
+        BitSet hits = new BitSet(docs.size());
+        if (needle.length() < 3) {
+            // Too short for trigrams; the keys are already lowercase, so a scan is cheap
+            for (int docId = 0; docId < keys.size(); docId++) {
+                if ((docId & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                    return null;
+                }
+                if (contains(keys.get(docId), needle)) {
+                    hits.set(docId);
+                }
+            }
+            return hits;
+        }
+
+        Postings[] lists = new Postings[needle.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(trigram(needle, i));
+            if (lists[i] == null) {
+                return hits;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] cursors = new int[lists.length];
+        Postings shortest = lists[0];
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            int docId = shortest.ids[i];
+            for (int l = 1; l < lists.length; l++) {
+                Postings other = lists[l];
+                int cursor = cursors[l];
+                while (cursor < other.size && other.ids[cursor] < docId) {
+                    cursor++;
+                }
+                cursors[l] = cursor;
+                if (cursor == other.size) {
+                    break candidates;
+                }
+                if (other.ids[cursor] != docId) {
+                    continue candidates;
+                }
+            }
+            if (contains(keys.get(docId), needle)) {
+                hits.set(docId);
+            }
+        }
+        return hits;
+    }
+
+    /** The product's document ID, or -1 if it isn't indexed. */
+    private int docIdOf(Product product) {
+        int docId = product.getSearchDoc();
+        if (docId >= 0 && docId < docs.size() && docs.get(docId) == product) {
+            return docId;
+        }
+        Integer mapped = docIds.get(product);
+        return mapped != null ? mapped : -1;
+    }
+
+    public int size() {
+        return docIds.size();
+    }
+
+    private synchronized void compact() {
+        List<Product> live = new ArrayList<>(docIds.size());
+        for (Product product : docs) {
+            if (product != null) {
+                live.add(product);
+            }
+        }
+        clear();
+        addAll(live);
+    }
+
+    private void indexKey(int docId, String key) {
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            postings.computeIfAbsent(trigram(key, i), t -> new Postings()).add(docId);
+        }
+    }
+
+    private static String keyOf(Product product) {
+        // The separator can't be typed into the search field, so no match spans both fields
+        String sku = product.getSku() != null ? product.getSku() : "";
+        String name = product.getProductName() != null ? product.getProductName() : "";
+        return normalize(sku + '\n' + name);
+    }
+
+    private static boolean contains(String key, String needle) {
+        // A needle with the separator would otherwise match across SKU and name
+        return key != null && key.contains(needle) && needle.indexOf('\n') < 0;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private final class Matcher implements Predicate<Product> {
+        private final String needle;
+        private BitSet hits;
+        private int searchedDocs;
+        private int searchedGeneration;
+
+        Matcher(String needle, BooleanSupplier cancelled) {
+            this.needle = needle;
+            synchronized (ProductSearchIndex.this) {
+                hits = ProductSearchIndex.this.search(needle, cancelled);
+                searchedDocs = docs.size();
+                searchedGeneration = generation;
+            }
+        }
+
+        @Override
+        public boolean test(Product product) {
+            if (searchedGeneration != generation) {
+                search();
+            }
+            int docId = docIdOf(product);
+            if (docId < 0) {
+                return contains(keyOf(product), needle);
+            }
+            if (docId >= searchedDocs) {
+                return contains(keys.get(docId), needle);
+            }
+            return hits.get(docId);
+        }
+
+        private void search() {
+            synchronized (ProductSearchIndex.this) {
+                hits = ProductSearchIndex.this.search(needle, () -> false);
+                searchedDocs = docs.size();
+                searchedGeneration = generation;
+            }
+        }
+    }
+
+    /** Ascending document IDs containing one trigram. */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int docId) {
+            // A trigram repeated within one key is only recorded once
+            if (size > 0 && ids[size - 1] == docId) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = docId;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.inventoryflow.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductGroups;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+/**
+ * Tree items for the grouped dashboard view. A product with several variants is one
+ * expandable row carrying its total inventory, and its variant rows are only
+ * created the first time it is expanded; a product with a single variant is a plain
+ * row. The tree follows a list of variant rows, normally the filtered catalog, while
+ * it is shown, and is regrouped when shown again after the list changed.
+ */
+public final class ProductTree {
+
+    /** A product row; its value is the first variant, which carries title and image. */
+    public static final class GroupItem extends TreeItem<Product> {
+        private final ProductGroups.Group group;
+        private final ReadOnlyIntegerWrapper totalInventory;
+        private final ReadOnlyStringWrapper summary;
+        private boolean childrenLoaded;
+
+        GroupItem(ProductGroups.Group group) {
+            super(group.getProduct());
+            this.group = group;
+            this.totalInventory = new ReadOnlyIntegerWrapper(this, "totalInventory", group.getTotalInventory());
+            this.summary = new ReadOnlyStringWrapper(this, "summary", group.getVariants().size() + " variants");
+            expandedProperty().addListener((obs, wasExpanded, expanded) -> {
+                if (expanded) {
+                    loadChildren();
+                }
+            });
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return false;
+        }
+
+        public ReadOnlyIntegerProperty totalInventoryProperty() {
+            return totalInventory.getReadOnlyProperty();
+        }
+
+        /** Stands in for the SKU on a product row, e.g. "3 variants". */
+        public ReadOnlyStringProperty summaryProperty() {
+            return summary.getReadOnlyProperty();
+        }
+
+        private void loadChildren() {
+            if (childrenLoaded) {
+                return;
+            }
+            childrenLoaded = true;
+            List<TreeItem<Product>> children = new ArrayList<>(group.getVariants().size());
+            for (Product variant : group.getVariants()) {
+                children.add(new TreeItem<>(variant));
+            }
+            getChildren().setAll(children);
+        }
+
+        private void refreshTotal() {
+            group.recomputeTotal();
+            totalInventory.set(group.getTotalInventory());
+        }
+    }
+
+    private final TreeItem<Product> root = new TreeItem<>();
+    private final ObservableList<Product> source;
+    private final Map<ProductGroups.Group, GroupItem> groupItems = new IdentityHashMap<>();
+    private ProductGroups groups;
+    private boolean active;
+    private boolean stale = true;
+
+    public ProductTree(ObservableList<Product> source) {
+        this.source = source;
+        source.addListener((ListChangeListener<Product>) this::sourceChanged);
+    }
+
+    /** The invisible root; its children are the product rows. */
+    public TreeItem<Product> getRoot() {
+        return root;
+    }
+
+    /**
+     * Starts or stops following the source list. The tree is regrouped when it
+     * becomes active after the list changed.
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+        if (active && stale) {
+            rebuild();
+        }
+    }
+
+    /** True for a variant row under an expanded product row. */
+    public static boolean isVariantRow(TreeItem<Product> item) {
+        return item != null && item.getParent() instanceof GroupItem;
+    }
+
+    private void sourceChanged(ListChangeListener.Change<? extends Product> change) {
+        if (!active) {
+            stale = true;
+            return;
+        }
+        // Rows edited in place only move totals; anything else regroups
+        List<Product> updated = new ArrayList<>();
+        while (change.next()) {
+            if (!change.wasUpdated()) {
+                rebuild();
+                return;
+            }
+            for (int i = change.getFrom(); i < change.getTo(); i++) {
+                updated.add(change.getList().get(i));
+            }
+        }
+        for (Product product : updated) {
+            ProductGroups.Group group = groups.groupOf(product);
+            GroupItem item = group == null ? null : groupItems.get(group);
+            if (item != null) {
+                item.refreshTotal();
+            }
+        }
+    }
+
+    private void rebuild() {
+        // Products that were expanded stay expanded, found by any variant still listed
+        Set<Product> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GroupItem item : groupItems.values()) {
+            if (item.isExpanded()) {
+                expanded.addAll(item.group.getVariants());
+            }
+        }
+
+        groups = ProductGroups.of(source);
+        groupItems.clear();
+        List<TreeItem<Product>> items = new ArrayList<>(groups.getGroups().size());
+        for (ProductGroups.Group group : groups.getGroups()) {
+            if (group.getVariants().size() == 1) {
+                items.add(new TreeItem<>(group.getProduct()));
+                continue;
+            }
+            GroupItem item = new GroupItem(group);
+            groupItems.put(group, item);
+            items.add(item);
+            if (!expanded.isEmpty() && group.getVariants().stream().anyMatch(expanded::contains)) {
+                item.setExpanded(true);
+            }
+        }
+        root.getChildren().setAll(items);
+        stale = false;
+    }
+}
@@ -0,0 +1,70 @@
+package com.inventoryflow.util;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+ * On-screen readout of frame pacing for checking scroll performance. Every JavaFX
+ * pulse is timed against the previous one, and twice a second the label shows the
+ * frame rate and the slowest frame of that window. While running it requests a
+ * pulse every frame, so it is only started on demand.
+ */
+public final class PulseMonitor extends AnimationTimer {
+
+    private static final long REPORT_INTERVAL_NANOS = 500_000_000L;
+
+    private final Label label;
+    private long lastPulse;
+    private long windowStart;
+    private long slowestFrame;
+    private int frames;
+    private boolean running;
+
+    public PulseMonitor(Label label) {
+        this.label = label;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        running = true;
+        lastPulse = 0;
+        label.setText("measuring...");
+        label.setVisible(true);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        running = false;
+        label.setVisible(false);
+    }
+
+    public void toggle() {
+        if (running) {
+            stop();
+        } else {
+            start();
+        }
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastPulse == 0) {
+            windowStart = now;
+        } else {
+            slowestFrame = Math.max(slowestFrame, now - lastPulse);
+            frames++;
+        }
+        lastPulse = now;
+
+        long elapsed = now - windowStart;
+        if (elapsed >= REPORT_INTERVAL_NANOS && frames > 0) {
+            double fps = frames * 1e9 / elapsed;
+            label.setText(String.format("%.0f fps  slowest %.1f ms", fps, slowestFrame / 1e6));
+            windowStart = now;
+            slowestFrame = 0;
+            frames = 0;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.inventoryflow.util;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.inventoryflow.model.Product;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+/**
+ * A sorted view of a product list for the dashboard table, taking the place of
+ * {@link javafx.collections.transformation.SortedList}. Names and SKUs are compared
+ * by locale-aware collation keys, computed once per row and value instead of on
+ * every comparison. Picking a new sort order sorts a snapshot of the rows in
+ * parallel on a background thread and then reorders the view in one permutation,
+ * so the table keeps its selection and the FX thread only pays for the reorder.
+ * Rows added, removed or changed while the view is sorted are merged in place by
+ * binary search instead of sorting again.
+ *
+ * <p>Must be used from the thread that changes the source list, normally the FX
+ * thread; the callback executor hands finished sorts back to it.
+ */
+public final class SortedProducts extends ObservableListBase<Product> {
+
+    /** A column the view can be sorted by. */
+    public enum Field { NAME, SKU, INVENTORY }
+
+    /** One column of a sort order, in the direction it is sorted. */
+    public static final class SortColumn {
+        private final Field field;
+        private final boolean ascending;
+
+        public SortColumn(Field field, boolean ascending) {
+            this.field = field;
+            this.ascending = ascending;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SortColumn column && column.field == field && column.ascending == ascending;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(field, ascending);
+        }
+    }
+
+    /**
+     * What a row is sorted by, captured when the row arrives or changes. Collation
+     * keys are filled in the first time an order needs them. A row that changes gets
+     * a new key and its old one is marked stale, which is how sorts that ran on a
+     * snapshot find the rows that changed under them.
+     */
+    private static final class Key {
+        final Product product;
+        final long order;
+        final String name;
+        final String sku;
+        final int level;
+        CollationKey nameKey;
+        CollationKey skuKey;
+        int index;
+        boolean stale;
+
+        Key(Product product, long order) {
+            this.product = product;
+            this.order = order;
+            this.name = Objects.requireNonNullElse(product.getProductName(), "");
+            this.sku = Objects.requireNonNullElse(product.getSku(), "");
+            this.level = product.getInventoryLevel();
+        }
+
+        void prepare(List<SortColumn> columns) {
+            for (SortColumn column : columns) {
+                if (column.field == Field.NAME && nameKey == null) {
+                    nameKey = COLLATOR.get().getCollationKey(name);
+                } else if (column.field == Field.SKU && skuKey == null) {
+                    skuKey = COLLATOR.get().getCollationKey(sku);
+                }
+            }
+        }
+    }
+
+    /** Changes past this many are reported as one replacement, like {@link com.inventoryflow.model.ProductList}. */
+    private static final int MAX_REPORTED_CHANGES = 256;
+
+    // Collators are not thread-safe; keys from clones with the same rules compare fine
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator collator = Collator.getInstance();
+        collator.setStrength(Collator.SECONDARY);
+        return collator;
+    });
+
+    private static final ExecutorService SORTER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-sort");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ObservableList<Product> source;
+    private final Executor callbackExecutor;
+    private final Map<Product, Key> keys = new IdentityHashMap<>();
+    private ArrayList<Key> view;
+    private List<SortColumn> requested = List.of();
+    private List<SortColumn> sortedBy = List.of();
+    private Comparator<Key> comparator;
+    private List<Key> createdDuringSort;
+    private long sortJob;
+    private long nextOrder;
+
+    /**
+     * @param callbackExecutor where finished background sorts are applied, normally
+     *                         the FX thread
+     */
+    public SortedProducts(ObservableList<Product> source, Executor callbackExecutor) {
+        this.source = source;
+        this.callbackExecutor = callbackExecutor;
+        this.view = new ArrayList<>(source.size());
+        for (Product product : source) {
+            view.add(newKey(product, nextOrder++));
+        }
+        renumber();
+        source.addListener((ListChangeListener<Product>) this::sourceChanged);
+    }
+
+    @Override
+    public Product get(int index) {
+        return view.get(index).product;
+    }
+
+    @Override
+    public int size() {
+        return view.size();
+    }
+
+    /**
+     * Sorts by the given columns, most significant first, or goes back to source
+     * order when empty. Returns at once; the view is reordered when the background
+     * sort finishes, and asking for the order it already has does nothing.
+     */
+    public void setSortOrder(List<SortColumn> columns) {
+        if (columns.equals(requested)) {
+            return;
+        }
+        requested = List.copyOf(columns);
+        long job = ++sortJob;
+        if (requested.isEmpty()) {
+            createdDuringSort = null;
+            sortedBy = requested;
+            comparator = null;
+            List<Key> inSourceOrder = new ArrayList<>(source.size());
+            for (Product product : source) {
+                inSourceOrder.add(keys.get(product));
+            }
+            reorder(inSourceOrder);
+            return;
+        }
+        List<SortColumn> order = requested;
+        Key[] snapshot = view.toArray(new Key[0]);
+        createdDuringSort = new ArrayList<>();
+        SORTER.execute(() -> {
+            Comparator<Key> sorted = comparator(order);
+            Arrays.stream(snapshot).parallel().forEach(key -> key.prepare(order));
+            Arrays.parallelSort(snapshot, sorted);
+            callbackExecutor.execute(() -> finishSort(job, order, sorted, snapshot));
+        });
+    }
+
+    private void finishSort(long job, List<SortColumn> order, Comparator<Key> sorted, Key[] snapshot) {
+        if (job != sortJob) {
+            return;
+        }
+        // Rows that arrived or changed since the snapshot are stale in it; their
+        // current keys are merged in the way any later change would be
+        List<Key> late = new ArrayList<>();
+        for (Key key : createdDuringSort) {
+            if (!key.stale) {
+                key.prepare(order);
+                late.add(key);
+            }
+        }
+        createdDuringSort = null;
+        late.sort(sorted);
+        List<Key> live = new ArrayList<>(snapshot.length);
+        for (Key key : snapshot) {
+            if (!key.stale) {
+                live.add(key);
+            }
+        }
+        sortedBy = order;
+        comparator = sorted;
+        reorder(insertSorted(live, late));
+    }
+
+    /** Replaces the view with the same rows in a new order, reported as a permutation. */
+    private void reorder(List<Key> reordered) {
+        int[] permutation = new int[reordered.size()];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[reordered.get(i).index] = i;
+        }
+        view = new ArrayList<>(reordered);
+        renumber();
+        if (permutation.length > 0) {
+            beginChange();
+            nextPermutation(0, permutation.length, permutation);
+            endChange();
+        }
+    }
+
+    private void sourceChanged(ListChangeListener.Change<? extends Product> change) {
+        if (comparator == null) {
+            follow(change);
+        } else {
+            mergeSorted(change);
+        }
+    }
+
+    /** Unsorted: the view is the source, with the same changes. */
+    private void follow(ListChangeListener.Change<? extends Product> change) {
+        beginChange();
+        while (change.next()) {
+            int from = change.getFrom();
+            int to = change.getTo();
+            if (change.wasPermutated()) {
+                List<Key> moved = new ArrayList<>(view.subList(from, to));
+                int[] permutation = new int[to - from];
+                for (int i = from; i < to; i++) {
+                    permutation[i - from] = change.getPermutation(i);
+                    view.set(change.getPermutation(i), moved.get(i - from));
+                }
+                nextPermutation(from, to, permutation);
+            } else if (change.wasUpdated()) {
+                for (int i = from; i < to; i++) {
+                    Key old = view.get(i);
+                    old.stale = true;
+                    view.set(i, newKey(old.product, old.order));
+                    nextUpdate(i);
+                }
+            } else {
+                List<Key> removed = view.subList(from, from + change.getRemovedSize());
+                for (Key key : removed) {
+                    key.stale = true;
+                    keys.remove(key.product, key);
+                }
+                removed.clear();
+                List<Key> added = new ArrayList<>(change.getAddedSize());
+                for (Product product : change.getAddedSubList()) {
+                    added.add(newKey(product, nextOrder++));
+                }
+                view.addAll(from, added);
+                if (change.wasRemoved()) {
+                    nextReplace(from, to, new ArrayList<>(change.getRemoved()));
+                } else {
+                    nextAdd(from, to);
+                }
+            }
+        }
+        renumber();
+        endChange();
+    }
+
+    /**
+     * Sorted: removed rows are dropped, changed rows that still sit between their
+     * neighbours are updated in place, and new or moved rows are inserted by binary
+     * search, all reported as one change. A few rows are moved within the view; many
+     * rebuild it in one pass and are reported as one replacement.
+     */
+    private void mergeSorted(ListChangeListener.Change<? extends Product> change) {
+        List<Key> removed = new ArrayList<>();
+        List<Key> inserted = new ArrayList<>();
+        List<Key> updated = new ArrayList<>();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                continue;
+            }
+            if (change.wasUpdated()) {
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    changed(change.getList().get(i), removed, inserted, updated);
+                }
+                continue;
+            }
+            for (Product product : change.getRemoved()) {
+                Key key = keys.remove(product);
+                if (key != null) {
+                    key.stale = true;
+                    if (isInView(key)) {
+                        removed.add(key);
+                    }
+                }
+            }
+            for (Product product : change.getAddedSubList()) {
+                changed(product, removed, inserted, updated);
+            }
+        }
+        inserted.removeIf(key -> key.stale);
+        updated.removeIf(key -> key.stale);
+        inserted.sort(comparator);
+
+        beginChange();
+        // Updated rows inside a replaced range are redrawn anyway
+        int replacedFrom = Integer.MAX_VALUE;
+        if (removed.size() + inserted.size() + updated.size() > MAX_REPORTED_CHANGES) {
+            replacedFrom = rebuild(inserted);
+        } else {
+            int first = view.size();
+            removed.sort(Comparator.comparingInt((Key key) -> key.index).reversed());
+            for (Key key : removed) {
+                view.remove(key.index);
+                nextRemove(key.index, key.product);
+                first = key.index;
+            }
+            for (Key key : inserted) {
+                int at = -Collections.binarySearch(view, key, comparator) - 1;
+                view.add(at, key);
+                nextAdd(at, at + 1);
+                first = Math.min(first, at);
+            }
+            for (int i = first; i < view.size(); i++) {
+                view.get(i).index = i;
+            }
+        }
+        for (Key key : updated) {
+            if (key.index < replacedFrom) {
+                nextUpdate(key.index);
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Drops stale keys and merges inserted ones in one pass, reported as one
+     * replacement from the first row that moved. Returns that row.
+     */
+    private int rebuild(List<Key> inserted) {
+        List<Key> previous = view;
+        List<Key> live = new ArrayList<>(previous.size());
+        for (Key key : previous) {
+            if (!key.stale) {
+                live.add(key);
+            }
+        }
+        view = new ArrayList<>(insertSorted(live, inserted));
+        int first = 0;
+        int common = Math.min(previous.size(), view.size());
+        while (first < common && previous.get(first) == view.get(first)) {
+            first++;
+        }
+        List<Product> replaced = new ArrayList<>(previous.size() - first);
+        for (Key key : previous.subList(first, previous.size())) {
+            replaced.add(key.product);
+        }
+        renumber();
+        nextReplace(first, view.size(), replaced);
+        return first;
+    }
+
+    /**
+     * Gives an added or changed row a new key, in place if it still sorts between its
+     * neighbours, otherwise for insertion in place of its old one.
+     */
+    private void changed(Product product, List<Key> removed, List<Key> inserted, List<Key> updated) {
+        Key old = keys.get(product);
+        Key key = newKey(product, old == null ? nextOrder++ : old.order);
+        key.prepare(sortedBy);
+        if (old == null) {
+            inserted.add(key);
+            return;
+        }
+        old.stale = true;
+        if (isInView(old) && fitsAt(old.index, key)) {
+            key.index = old.index;
+            view.set(old.index, key);
+            updated.add(key);
+            return;
+        }
+        if (isInView(old)) {
+            removed.add(old);
+        }
+        inserted.add(key);
+    }
+
+    private boolean isInView(Key key) {
+        return key.index < view.size() && view.get(key.index) == key;
+    }
+
+    /** Whether a key can replace the one at an index without breaking the order. */
+    private boolean fitsAt(int index, Key key) {
+        for (int i = index - 1; i >= 0; i--) {
+            Key left = view.get(i);
+            if (!left.stale) {
+                if (comparator.compare(left, key) > 0) {
+                    return false;
+                }
+                break;
+            }
+        }
+        for (int i = index + 1; i < view.size(); i++) {
+            Key right = view.get(i);
+            if (!right.stale) {
+                return comparator.compare(key, right) <= 0;
+            }
+        }
+        return true;
+    }
+
+    /** Merges sorted keys into a sorted list, finding each position by binary search. */
+    private List<Key> insertSorted(List<Key> sorted, List<Key> additions) {
+        if (additions.isEmpty()) {
+            return sorted;
+        }
+        List<Key> merged = new ArrayList<>(sorted.size() + additions.size());
+        int copied = 0;
+        for (Key key : additions) {
+            int at = -Collections.binarySearch(sorted, key, comparator) - 1;
+            merged.addAll(sorted.subList(copied, at));
+            merged.add(key);
+            copied = at;
+        }
+        merged.addAll(sorted.subList(copied, sorted.size()));
+        return merged;
+    }
+
+    private Key newKey(Product product, long order) {
+        Key key = new Key(product, order);
+        keys.put(product, key);
+        if (createdDuringSort != null) {
+            createdDuringSort.add(key);
+        }
+        return key;
+    }
+
+    private void renumber() {
+        for (int i = 0; i < view.size(); i++) {
+            view.get(i).index = i;
+        }
+    }
+
+    /** Ties, and rows equal in every column, keep the order they arrived in. */
+    private static Comparator<Key> comparator(List<SortColumn> columns) {
+        Comparator<Key> comparator = null;
+        for (SortColumn column : columns) {
+            Comparator<Key> next = switch (column.field) {
+                case NAME -> (a, b) -> a.nameKey.compareTo(b.nameKey);
+                case SKU -> (a, b) -> a.skuKey.compareTo(b.skuKey);
+                case INVENTORY -> Comparator.comparingInt(key -> key.level);
+            };
+            if (!column.ascending) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Key> arrival = Comparator.comparingLong(key -> key.order);
+        return comparator == null ? arrival : comparator.thenComparing(arrival);
+    }
+}
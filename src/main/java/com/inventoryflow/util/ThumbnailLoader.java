@@ -0,0 +1,200 @@
+package com.inventoryflow.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import javafx.scene.image.Image;
+
+/**
+ * Schedules thumbnail loads for table rows. A fixed number of workers take the most
+ * urgent request first: rows inside the current viewport, then rows nearest to it,
+ * preferring the direction the table is scrolling in. Cells cancel their request
+ * when they are reused for another row, and each viewport change queues a few rows
+ * ahead of the scroll direction so they are cached by the time they appear.
+ */
+public final class ThumbnailLoader {
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    private static final int PREFETCH_ROWS = 10;
+
+    /** A pending load; cancelling it drops it from the queue and suppresses its callback. */
+    public final class Request {
+        private final String url;
+        private final int row;
+        private final Consumer<Image> onLoaded;
+        private volatile boolean cancelled;
+
+        private Request(String url, int row, Consumer<Image> onLoaded) {
+            this.url = url;
+            this.row = row;
+            this.onLoaded = onLoaded;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            synchronized (ThumbnailLoader.this) {
+                pending.remove(this);
+            }
+        }
+    }
+
+    private final ImageCache cache;
+    private final IntFunction<String> urlAt;
+    private final Executor callbackExecutor;
+    private final List<Request> pending = new ArrayList<>();
+    private int firstVisible;
+    private int lastVisible = -1;
+    private int direction = 1;
+    private boolean shutdown;
+
+    /**
+     * @param urlAt            image URL of a row, or null for a row past either end; used
+     *                         to prefetch rows not on screen
+     * @param callbackExecutor where load callbacks run, normally the FX thread
+     */
+    public ThumbnailLoader(ImageCache cache, int concurrency, IntFunction<String> urlAt,
+                           Executor callbackExecutor) {
+        this.cache = cache;
+        this.urlAt = urlAt;
+        this.callbackExecutor = callbackExecutor;
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(this::work, "thumbnail-loader-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues the thumbnail of a row; {@code onLoaded} runs on the callback executor
+     * unless the request is cancelled first.
+     */
+    public Request request(String url, int row, Consumer<Image> onLoaded) {
+        Request request = new Request(url, row, onLoaded);
+        synchronized (this) {
+            pending.add(request);
+            notify();
+        }
+        return request;
+    }
+
+    /**
+     * Records the rows now on screen, drops prefetches that fell out of range, and
+     * queues the rows just past the viewport in the scroll direction.
+     */
+    public void setViewport(int first, int last) {
+        List<String> prefetch = new ArrayList<>();
+        int start;
+        synchronized (this) {
+            if (first != firstVisible) {
+                direction = first > firstVisible ? 1 : -1;
+            }
+            firstVisible = first;
+            lastVisible = last;
+            pending.removeIf(request -> request.onLoaded == null && distance(request) > PREFETCH_ROWS);
+            start = direction > 0 ? last + 1 : first - 1;
+        }
+        for (int i = 0; i < PREFETCH_ROWS; i++) {
+            String url = urlAt.apply(start + i * direction);
+            if (url != null && !url.isEmpty() && cache.getIfPresent(url) == null) {
+                prefetch.add(url);
+            }
+        }
+        synchronized (this) {
+            for (int i = 0; i < prefetch.size(); i++) {
+                String url = prefetch.get(i);
+                if (pending.stream().noneMatch(request -> request.url.equals(url))) {
+                    pending.add(new Request(url, start + i * direction, null));
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Stops the workers; requests still queued are dropped.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            pending.clear();
+            notifyAll();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Request request;
+            try {
+                request = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (request == null) {
+                return;
+            }
+            try {
+                Image image = cache.get(request.url);
+                if (request.onLoaded != null && !request.cancelled) {
+                    callbackExecutor.execute(() -> {
+                        if (!request.cancelled) {
+                            request.onLoaded.accept(image);
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Leave the cell blank; it asks again the next time it shows the row
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the most urgent request, waiting for one if needed, or
+     * returns null once shut down.
+     */
+    private synchronized Request take() throws InterruptedException {
+        while (pending.isEmpty() && !shutdown) {
+            wait();
+        }
+        if (shutdown) {
+            return null;
+        }
+        int best = 0;
+        long bestPriority = Long.MAX_VALUE;
+        for (int i = 0; i < pending.size(); i++) {
+            long priority = priority(pending.get(i));
+            if (priority < bestPriority) {
+                best = i;
+                bestPriority = priority;
+            }
+        }
+        return pending.remove(best);
+    }
+
+    /** Lower is more urgent: visible rows, then rows ahead, then rows behind, then prefetches. */
+    private long priority(Request request) {
+        long priority = distance(request);
+        boolean behind = direction > 0 ? request.row < firstVisible : request.row > lastVisible;
+        if (behind) {
+            priority += PREFETCH_ROWS;
+        }
+        if (request.onLoaded == null) {
+            priority += 2L * PREFETCH_ROWS;
+        }
+        return priority;
+    }
+
+    private int distance(Request request) {
+        if (request.row < firstVisible) {
+            return firstVisible - request.row;
+        }
+        if (request.row > lastVisible) {
+            return request.row - lastVisible;
+        }
+        return 0;
+    }
+}
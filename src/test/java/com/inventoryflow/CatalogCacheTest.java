@@ -0,0 +1,98 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogCacheTest {
+
+    private static final int VARIANTS = 500;
+
+    private DatabaseManager db;
+
+    @BeforeEach
+    void setUp() {
+        db = DatabaseManager.getInstance();
+        db.clearCatalog();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.clearCatalog();
+    }
+
+    @Test
+    void testLoadsCatalogInSyncOrder() {
+        List<Product> rows = new ArrayList<>();
+        for (int i = 0; i < VARIANTS; i++) {
+            int product = i / 5;
+            rows.add(new Product("gid://shopify/Product/" + (VARIANTS - product),
+                    "https://cdn.example.com/" + product + ".jpg", "Product " + product,
+                    "SKU-" + i, i % 17, "gid://shopify/InventoryItem/" + i));
+        }
+        db.replaceCatalog(rows);
+
+        List<Product> cached = db.loadCatalog();
+
+        assertEquals(rows.size(), cached.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ShopifyServiceTest.assertSameRow(rows.get(i), cached.get(i));
+        }
+    }
+
+    @Test
+    void testDeltaRowsReplaceTheirProduct() {
+        db.replaceCatalog(List.of(
+                new Product("p1", "", "Tee", "TEE-S", 1, "i1"),
+                new Product("p1", "", "Tee", "TEE-M", 2, "i2"),
+                new Product("p2", "", "Mug", "MUG", 3, "i3")));
+
+        db.upsertProducts(List.of(
+                new Product("p1", "", "Classic Tee", "TEE-L", 5, "i4"),
+                new Product("p3", "", "Cap", "CAP", 6, "i5")));
+        int store = Locations.getInstance().intern("gid://shopify/Location/1", "Location 1");
+        db.updateLocationLevels(Map.of("i3", LocationLevels.add(LocationLevels.EMPTY, store, 30)));
+
+        List<Product> cached = db.loadCatalog();
+        assertEquals(3, cached.size());
+        assertEquals("TEE-L", cached.get(0).getSku());
+        assertEquals("Classic Tee", cached.get(0).getProductName());
+        assertEquals("MUG", cached.get(1).getSku());
+        assertEquals(30, cached.get(1).getInventoryLevel());
+        assertEquals("CAP", cached.get(2).getSku());
+    }
+
+    @Test
+    void testLocationLevelsSurviveReload() {
+        int warehouse = Locations.getInstance().intern("gid://shopify/Location/701", "Warehouse");
+        int storefront = Locations.getInstance().intern("gid://shopify/Location/702", "Storefront");
+        db.replaceCatalog(List.of(
+                new Product("p1", "", "Tee", "TEE-S", 1, "i1"),
+                new Product("p2", "", "Mug", "MUG", 3, "i2")));
+
+        db.updateLocationLevels(Map.of("i2", LocationLevels.add(
+                LocationLevels.add(LocationLevels.EMPTY, warehouse, 20), storefront, 4)));
+        List<Product> cached = db.loadCatalog();
+        assertNull(cached.get(0).getLocationLevels());
+        assertEquals(24, cached.get(1).getInventoryLevel());
+        assertEquals(4, cached.get(1).getInventoryAt(storefront));
+
+        // A delta that replaces the product drops the old breakdown with its variants
+        db.upsertProducts(List.of(new Product("p2", "", "Mug", "MUG", 7, "i2")));
+        db.updateLocationLevels(Map.of("i1", LocationLevels.add(LocationLevels.EMPTY, warehouse, 9)));
+        cached = db.loadCatalog();
+        assertNull(cached.get(1).getLocationLevels());
+        assertEquals(7, cached.get(1).getInventoryLevel());
+        assertEquals(9, cached.get(0).getInventoryAt(warehouse));
+    }
+}
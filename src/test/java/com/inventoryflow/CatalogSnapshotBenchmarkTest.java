@@ -0,0 +1,97 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.CatalogSnapshot;
+import com.inventoryflow.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Compares cold-start load time of the memory-mapped catalog snapshot against the
+ * SQLite cache, both carrying per-location quantities. Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class CatalogSnapshotBenchmarkTest {
+
+    private static final int VARIANTS = 100_000;
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager db;
+    private List<Product> rows;
+
+    @BeforeEach
+    void setUp() {
+        db = DatabaseManager.getInstance();
+        db.clearCatalog();
+        rows = new ArrayList<>();
+        ProductStore store = new ProductStore(VARIANTS);
+        int warehouse = Locations.getInstance().intern("gid://shopify/Location/901", "Warehouse");
+        int storefront = Locations.getInstance().intern("gid://shopify/Location/902", "Storefront");
+        for (int i = 0; i < VARIANTS; i++) {
+            int product = i / 5;
+            String productId = "gid://shopify/Product/" + product;
+            String imageUrl = "https://cdn.example.com/" + product + ".jpg";
+            String itemId = "gid://shopify/InventoryItem/" + i;
+            // Most variants are stocked at one or two locations; some have no breakdown
+            rows.add(switch (i % 3) {
+                case 0 -> store.add(productId, imageUrl, "Product " + product, "SKU-" + i, i % 17, itemId);
+                case 1 -> store.add(productId, imageUrl, "Product " + product, "SKU-" + i,
+                        LocationLevels.add(LocationLevels.EMPTY, warehouse, i % 17), itemId);
+                default -> store.add(productId, imageUrl, "Product " + product, "SKU-" + i,
+                        LocationLevels.add(LocationLevels.add(LocationLevels.EMPTY, warehouse, i % 17),
+                                storefront, i % 5), itemId);
+            });
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.clearCatalog();
+    }
+
+    @Test
+    void benchmarkSnapshotAgainstSqlite() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        db.replaceCatalog(rows);
+        CatalogSnapshot.write(file, rows);
+
+        // Warm both paths once so the comparison isn't dominated by class loading
+        db.loadCatalog();
+        CatalogSnapshot.open(file).toProducts();
+
+        long start = System.nanoTime();
+        List<Product> fromSqlite = db.loadCatalog();
+        long sqliteMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        long openMillis = (System.nanoTime() - start) / 1_000_000;
+        List<Product> fromSnapshot = snapshot.toProducts();
+        long snapshotMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("rows=%d sqlite=%dms snapshot open=%dms viewed=%dms%n",
+                VARIANTS, sqliteMillis, openMillis, snapshotMillis);
+        assertTrue(snapshotMillis * 4 < sqliteMillis, "the snapshot should load several times faster than SQLite");
+
+        assertEquals(rows.size(), snapshot.size());
+        assertEquals(fromSqlite.size(), fromSnapshot.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ShopifyServiceTest.assertSameRow(rows.get(i), fromSnapshot.get(i));
+            ShopifyServiceTest.assertSameRow(rows.get(i), fromSqlite.get(i));
+        }
+    }
+}
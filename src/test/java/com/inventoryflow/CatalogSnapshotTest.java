@@ -0,0 +1,137 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.CatalogSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks snapshot rows read back as written, that edits to rows viewing a mapped
+ * snapshot stay in memory, that a snapshot can be rewritten or deleted while one
+ * is open, and that damaged snapshots are rejected rather than misread.
+ */
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRowsReadByIndex() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, List.of(
+                new Product("p1", null, "Tee", "TEE-S", 1, "i1"),
+                new Product("p1", null, "Tee", "TEE-M", 0, "i2"),
+                new Product("gid://shopify/Product/7", "https://cdn.example.com/7.jpg", "Mug", "MUG",
+                        3, "gid://shopify/InventoryItem/70")));
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        assertEquals(3, snapshot.size());
+        assertEquals("TEE-M", snapshot.getSku(1));
+        assertEquals("", snapshot.getImageUrl(0));
+        assertSame(snapshot.getProductName(0), snapshot.getProductName(1));
+        assertEquals("p1", snapshot.getId(0));
+        assertEquals(-1, snapshot.getIdNumber(0));
+        assertEquals(7, snapshot.getIdNumber(2));
+        assertEquals("gid://shopify/Product/7", snapshot.getId(2));
+        assertEquals("gid://shopify/InventoryItem/70", snapshot.getInventoryItemId(2));
+    }
+
+    @Test
+    void testEditsToViewedRowsStayInMemory() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        List<Product> rows = catalog(50);
+        CatalogSnapshot.write(file, rows);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        List<Product> viewed = snapshot.toProducts();
+        for (int i = 0; i < rows.size(); i++) {
+            ShopifyServiceTest.assertSameRow(rows.get(i), viewed.get(i));
+        }
+
+        Product edited = viewed.get(4);
+        edited.setSku("EDITED");
+        edited.setProductName("Renamed");
+        edited.setLocationLevels(LocationLevels.add(LocationLevels.EMPTY, warehouse(), 99));
+        assertEquals("EDITED", edited.getSku());
+        assertEquals("Renamed", edited.getProductName());
+        assertEquals(99, edited.getTotalInventory());
+        assertEquals("SKU-4", snapshot.getSku(4), "the mapped file is never written");
+        assertEquals("Product 0", viewed.get(3).getProductName());
+
+        Product copy = ProductStore.copyOf(List.of(edited)).get(0);
+        ShopifyServiceTest.assertSameRow(edited, copy);
+    }
+
+    @Test
+    void testRewriteAndDeleteWhileOpen() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, catalog(20));
+        List<Product> first = CatalogSnapshot.open(file).toProducts();
+
+        // The first snapshot is still mapped by the rows above
+        CatalogSnapshot.write(file, catalog(30));
+        assertEquals(30, CatalogSnapshot.open(file).size());
+        assertEquals("SKU-19", first.get(19).getSku());
+
+        CatalogSnapshot.delete(file);
+        assertNull(CatalogSnapshot.open(file));
+        assertEquals(0, snapshotFiles().size(), "data files that are not mapped go too");
+    }
+
+    @Test
+    void testRejectsCorruptOrForeignSnapshots() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, catalog(100));
+        assertNotNull(CatalogSnapshot.open(file));
+
+        Path data = tempDir.resolve(Files.readString(file).trim());
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), channel.size() - 1);
+        }
+        assertNull(CatalogSnapshot.open(file), "checksum mismatch");
+
+        Files.write(data, new byte[] {1, 2, 3});
+        assertNull(CatalogSnapshot.open(file), "truncated header");
+
+        Files.writeString(file, "../elsewhere.snapshot.1");
+        assertNull(CatalogSnapshot.open(file), "pointer outside the snapshot's files");
+
+        assertNull(CatalogSnapshot.open(tempDir.resolve("missing.snapshot")));
+    }
+
+    private List<Path> snapshotFiles() throws Exception {
+        try (var files = Files.list(tempDir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("catalog.snapshot")).toList();
+        }
+    }
+
+    private static int warehouse() {
+        return Locations.getInstance().intern("gid://shopify/Location/901", "Warehouse");
+    }
+
+    private static List<Product> catalog(int variants) {
+        ProductStore store = new ProductStore(variants);
+        List<Product> rows = new ArrayList<>();
+        for (int i = 0; i < variants; i++) {
+            int product = i / 4;
+            rows.add(store.add("gid://shopify/Product/" + product, "https://cdn.example.com/" + product + ".jpg",
+                    "Product " + product, "SKU-" + i,
+                    LocationLevels.add(LocationLevels.EMPTY, warehouse(), i % 17),
+                    "gid://shopify/InventoryItem/" + i));
+        }
+        return rows;
+    }
+}
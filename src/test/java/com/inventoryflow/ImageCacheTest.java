@@ -0,0 +1,73 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.inventoryflow.util.ImageCache;
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private StandInShopify shopify;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shopify = new StandInShopify();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shopify.close();
+    }
+
+    @Test
+    void testFetchesEachImageOnceAcrossRequestsAndSessions() throws Exception {
+        ImageCache cache = new ImageCache(cacheDir, 2);
+        String url = shopify.imageUrl("tee");
+
+        // Cells scrolling past the same row at once share one download
+        List<CompletableFuture<Image>> loads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            loads.add(cache.load(url));
+        }
+        Image image = loads.get(0).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<Image> load : loads) {
+            assertSame(image, load.get(10, TimeUnit.SECONDS));
+        }
+        assertFalse(image.isError());
+        assertSame(image, cache.getIfPresent(url));
+        assertEquals(1, shopify.imageRequests());
+
+        // Pushed out of memory by newer images, then read back from disk
+        cache.load(shopify.imageUrl("mug")).get(10, TimeUnit.SECONDS);
+        cache.load(shopify.imageUrl("cap")).get(10, TimeUnit.SECONDS);
+        assertNull(cache.getIfPresent(url));
+        assertNotNull(cache.load(url).get(10, TimeUnit.SECONDS));
+        assertEquals(3, shopify.imageRequests());
+
+        // A new session starts with an empty memory tier but the same disk tier
+        ImageCache nextSession = new ImageCache(cacheDir, 2);
+        assertNotNull(nextSession.load(url).get(10, TimeUnit.SECONDS));
+        assertEquals(3, shopify.imageRequests());
+    }
+
+    @Test
+    void testFailedLoadsAreNotCached() throws Exception {
+        ImageCache cache = new ImageCache(cacheDir, 2);
+        String missing = "http://127.0.0.1:1/missing.png";
+        assertThrows(Exception.class, () -> cache.load(missing).get(10, TimeUnit.SECONDS));
+        assertNull(cache.getIfPresent(missing));
+    }
+}
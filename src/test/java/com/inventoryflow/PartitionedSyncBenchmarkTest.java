@@ -0,0 +1,79 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.service.ShopifyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares wall-clock sync time of sequential and partitioned fetches against a
+ * stand-in server with per-request latency, and checks every partition count
+ * produces the same rows in the same order. Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class PartitionedSyncBenchmarkTest {
+
+    private static final int PRODUCTS = 800;
+    private static final long LATENCY_MILLIS = 25;
+
+    private StandInShopify shopify;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shopify = new StandInShopify();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            shopify.addProduct(id * 7, "Product " + id, "https://cdn.example.com/" + id + ".jpg")
+                    .variant(id * 10, "SKU-" + id, id * 100, (int) (id % 13));
+        }
+        shopify.setLatencyMillis(LATENCY_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shopify.close();
+    }
+
+    @Test
+    void benchmarkPartitionedSync() throws Exception {
+        timeSync(1, new ArrayList<>());
+        List<Product> sequential = new ArrayList<>();
+        long sequentialMillis = timeSync(1, sequential);
+        assertEquals(PRODUCTS, sequential.size());
+        System.out.printf("partitions=1 wall=%dms%n", sequentialMillis);
+
+        for (int partitions : new int[] {2, 4, 8}) {
+            List<Product> rows = new ArrayList<>();
+            long millis = timeSync(partitions, rows);
+            System.out.printf("partitions=%d wall=%dms speedup=%.1fx%n",
+                    partitions, millis, (double) sequentialMillis / millis);
+            if (partitions >= 4) {
+                assertTrue(millis * 3 < sequentialMillis * 2, "expected at least a 1.5x speedup");
+            }
+
+            assertEquals(sequential.size(), rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ShopifyServiceTest.assertSameRow(sequential.get(i), rows.get(i));
+            }
+        }
+    }
+
+    private long timeSync(int partitions, List<Product> rows) throws Exception {
+        // A fresh service per run so each starts from the same cost estimate
+        ShopifyService service = new ShopifyService(shopify.graphqlEndpoint(), "test-token");
+        long start = System.nanoTime();
+        if (partitions == 1) {
+            service.streamProducts(rows::addAll).get(60, TimeUnit.SECONDS);
+        } else {
+            service.streamProductsPartitioned(partitions, rows::addAll).get(60, TimeUnit.SECONDS);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,81 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.ProductFilter;
+import com.inventoryflow.util.ProductSearchIndex;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductFilterTest {
+
+    private ObservableList<Product> list;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        list = FXCollections.observableArrayList();
+        index = new ProductSearchIndex();
+        index.attach(list);
+        ProductStore store = new ProductStore();
+        list.addAll(
+                store.add("p1", "", "Classic Tee", "ABC-TEE-S", 3, "i1"),
+                store.add("p1", "", "Classic Tee", "ABC-TEE-M", 12, "i2"),
+                store.add("p2", "", "Canvas Tote", "TOTE-ABC", 0, "i3"),
+                store.add("p3", "", "Tee Mug", "MUG-1", 40, "i4"),
+                store.add("p4", "", "Hoodie", "HD-ABC-1", 9, "i5"));
+    }
+
+    @Test
+    void testFieldPrefixAndComparisonTerms() {
+        assertEquals(List.of("ABC-TEE-S"), skus("inventory<10 sku:ABC-* name:\"tee\""));
+        assertEquals(List.of("ABC-TEE-S", "ABC-TEE-M"), skus("sku:abc-*"));
+        assertEquals(List.of("ABC-TEE-S", "ABC-TEE-M", "TOTE-ABC", "HD-ABC-1"), skus("sku:ABC"));
+        assertEquals(List.of("ABC-TEE-S", "ABC-TEE-M", "MUG-1"), skus("name:tee"));
+        assertEquals(List.of("TOTE-ABC"), skus("stock=0"));
+        assertEquals(List.of("ABC-TEE-M", "MUG-1"), skus("inventory>=10"));
+        assertEquals(List.of("ABC-TEE-S", "ABC-TEE-M", "MUG-1", "HD-ABC-1"), skus("inv!=0"));
+    }
+
+    @Test
+    void testPlainTextTerms() {
+        assertEquals(List.of("ABC-TEE-S", "ABC-TEE-M", "MUG-1"), skus("tee"));
+        // Words are matched independently, a quoted phrase as written
+        assertEquals(List.of("MUG-1"), skus("mug tee"));
+        assertEquals(List.of(), skus("\"mug tee\""));
+        assertEquals(List.of("MUG-1"), skus("\"tee mug\""));
+        assertEquals(5, skus("   ").size());
+    }
+
+    @Test
+    void testMalformedTermsFallBackToText() {
+        // Half-typed comparisons and unknown fields are searched literally
+        assertEquals(List.of(), skus("inventory<"));
+        assertEquals(List.of(), skus("color:red"));
+        assertEquals(List.of("HD-ABC-1"), skus("hd-abc"));
+    }
+
+    @Test
+    void testCancelledCompileReturnsNull() {
+        assertNull(ProductFilter.parse("sku:ABC-*").prepare(index, () -> true));
+        assertNotNull(ProductFilter.parse("inventory<5").prepare(index, () -> true));
+    }
+
+    private List<String> skus(String query) {
+        FilteredList<Product> filtered = new FilteredList<>(list,
+                ProductFilter.parse(query).prepare(index, () -> false));
+        List<String> skus = new ArrayList<>();
+        for (Product product : filtered) {
+            skus.add(product.getSku());
+        }
+        return skus;
+    }
+}
@@ -0,0 +1,134 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures retained heap per variant for the old eager-property layout and for
+ * products stored in a {@link ProductStore}, first with shared strings so only the
+ * per-row bookkeeping is compared, then with the strings a parser hands out.
+ * Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class ProductFootprintBenchmarkTest {
+
+    private static final int VARIANTS = 200_000;
+
+    /** The previous Product layout: six properties allocated up front. */
+    private static final class EagerProduct {
+        final StringProperty id;
+        final StringProperty imageUrl;
+        final StringProperty productName;
+        final StringProperty sku;
+        final IntegerProperty inventoryLevel;
+        final StringProperty inventoryItemId;
+
+        EagerProduct(String id, String imageUrl, String productName, String sku,
+                     int inventoryLevel, String inventoryItemId) {
+            this.id = new SimpleStringProperty(id);
+            this.imageUrl = new SimpleStringProperty(imageUrl);
+            this.productName = new SimpleStringProperty(productName);
+            this.sku = new SimpleStringProperty(sku);
+            this.inventoryLevel = new SimpleIntegerProperty(inventoryLevel);
+            this.inventoryItemId = new SimpleStringProperty(inventoryItemId);
+        }
+    }
+
+    private final String[] skus = new String[VARIANTS];
+
+    @Test
+    void benchmarkBytesPerVariant() {
+        for (int i = 0; i < VARIANTS; i++) {
+            skus[i] = "SKU-" + i;
+        }
+
+        double eager = bytesPerRow(count -> {
+            List<Object> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new EagerProduct("p", "u", "n", skus[i], i, "i"));
+            }
+            return rows;
+        });
+        double stored = bytesPerRow(count -> {
+            ProductStore store = new ProductStore(count);
+            List<Object> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(store.add("p", "u", "n", skus[i], i, "i"));
+            }
+            return rows;
+        });
+        double bound = bytesPerRow(count -> {
+            ProductStore store = new ProductStore(count);
+            List<Object> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Product product = store.add("p", "u", "n", skus[i], i, "i");
+                // What a visible table row binds
+                product.productNameProperty();
+                product.skuProperty();
+                product.inventoryLevelProperty();
+                rows.add(product);
+            }
+            return rows;
+        });
+
+        System.out.printf("bytes per variant: eager=%.0f store=%.0f store+bound=%.0f%n", eager, stored, bound);
+        assertTrue(stored * 2 < eager, "store should at least halve per-row overhead");
+    }
+
+    @Test
+    void benchmarkRetainedHeapWithGids() {
+        // Every row gets its own ID strings and title copy, as a JSON parser hands them out
+        double eager = bytesPerRow(count -> {
+            List<Object> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int product = i / 5;
+                rows.add(new EagerProduct("gid://shopify/Product/" + (7_000_000_000L + product),
+                        "https://cdn.example.com/" + product + ".jpg", "Product " + product, "SKU-" + i,
+                        i, "gid://shopify/InventoryItem/" + (40_000_000_000L + i)));
+            }
+            return rows;
+        });
+        double stored = bytesPerRow(count -> {
+            ProductStore store = new ProductStore(count);
+            List<Object> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int product = i / 5;
+                rows.add(store.add("gid://shopify/Product/" + (7_000_000_000L + product),
+                        "https://cdn.example.com/" + product + ".jpg", "Product " + product, "SKU-" + i,
+                        i, "gid://shopify/InventoryItem/" + (40_000_000_000L + i)));
+            }
+            return rows;
+        });
+
+        System.out.printf("retained bytes per variant with strings: eager=%.0f store=%.0f%n", eager, stored);
+        assertTrue(stored * 2 < eager, "numeric IDs and shared strings should halve retained heap");
+    }
+
+    private static double bytesPerRow(IntFunction<List<Object>> build) {
+        long before = usedHeap();
+        List<Object> rows = build.apply(VARIANTS);
+        long after = usedHeap();
+        assertEquals(VARIANTS, rows.size());
+        return (double) (after - before) / VARIANTS;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
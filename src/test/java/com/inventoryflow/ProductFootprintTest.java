@@ -0,0 +1,54 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.model.ShopifyGid;
+import javafx.beans.property.IntegerProperty;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the compact row layout behind {@link Product}: GIDs kept as numbers read
+ * back unchanged, and lazily created properties write through to the store.
+ */
+class ProductFootprintTest {
+
+    @Test
+    void testGidsRoundTripThroughNumericColumns() {
+        ProductStore store = new ProductStore();
+        Product product = store.add("gid://shopify/Product/8123456789", "", "Tee", "TEE-S", 1,
+                "gid://shopify/InventoryItem/45123456789");
+        Product other = store.add("p2", "", "Mug", "MUG", 2, "gid://shopify/InventoryItem/007");
+
+        assertEquals("gid://shopify/Product/8123456789", product.getId());
+        assertEquals("gid://shopify/InventoryItem/45123456789", product.getInventoryItemId());
+        assertEquals("p2", other.getId());
+        assertEquals("gid://shopify/InventoryItem/007", other.getInventoryItemId());
+
+        other.setId("gid://shopify/Product/9");
+        assertEquals("gid://shopify/Product/9", other.getId());
+        assertEquals(8123456789L, ShopifyGid.parse(ShopifyGid.PRODUCT, product.getId()));
+        assertEquals(-1, ShopifyGid.parse(ShopifyGid.PRODUCT, product.getInventoryItemId()));
+    }
+
+    @Test
+    void testPropertiesWriteThroughToStore() {
+        ProductStore store = new ProductStore();
+        Product product = store.add("p1", "", "Tee", "TEE-S", 3, "i1");
+
+        product.setInventoryLevel(4);
+        IntegerProperty level = product.inventoryLevelProperty();
+        assertEquals(4, level.get());
+
+        product.setInventoryLevel(5);
+        assertEquals(5, level.get());
+        level.set(6);
+        assertEquals(6, product.getInventoryLevel());
+
+        product.skuProperty().set("TEE-M");
+        assertEquals("TEE-M", product.getSku());
+        assertSame(product, product.skuProperty().getBean());
+        assertEquals(1, store.size());
+    }
+}
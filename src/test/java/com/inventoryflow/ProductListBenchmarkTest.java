@@ -0,0 +1,98 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.ProductSearchIndex;
+import com.inventoryflow.util.SortedProducts;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Times merges into a large list with the dashboard's views attached: a resync that
+ * changes nothing, and syncs that delete scattered variants, against rebuilding the
+ * list from scratch. Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class ProductListBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+
+    @Test
+    void benchmarkUnchangedResync() {
+        ProductList list = new ProductList();
+        list.merge(catalog());
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            List<Product> resync = catalog();
+            long start = System.nanoTime();
+            list.startRefresh();
+            list.merge(resync);
+            list.removeStale();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("rows=%d unchanged full merge=%.1fms%n", ROWS, best / 1e6);
+        assertTrue(best < 250_000_000L, "an unchanged resync should take well under a quarter second");
+    }
+
+    @Test
+    void benchmarkScatteredRemovals() {
+        for (int every : new int[] {100, 10, 2}) {
+            long remove = Long.MAX_VALUE;
+            long rebuild = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                List<Product> catalog = catalog();
+                List<Product> kept = new ArrayList<>();
+                for (int i = 0; i < ROWS; i++) {
+                    if (i % every != 0) {
+                        kept.add(catalog.get(i));
+                    }
+                }
+
+                ProductList list = withViews();
+                list.merge(catalog);
+                long start = System.nanoTime();
+                list.startRefresh();
+                list.merge(kept);
+                list.removeStale();
+                remove = Math.min(remove, System.nanoTime() - start);
+                assertEquals(kept.size(), list.size());
+
+                // What it costs the views to start over with the same rows
+                list = withViews();
+                list.merge(catalog);
+                start = System.nanoTime();
+                list.setAll(kept);
+                rebuild = Math.min(rebuild, System.nanoTime() - start);
+            }
+            System.out.printf("rows=%d remove every %d: merge=%.1fms rebuild=%.1fms%n",
+                    ROWS, every, remove / 1e6, rebuild / 1e6);
+            assertTrue(remove * 2 < rebuild, "removing rows should cost under half a rebuild");
+        }
+    }
+
+    /** A list with the views the dashboard puts over it: search index, filter and sort. */
+    private static ProductList withViews() {
+        ProductList list = new ProductList();
+        new ProductSearchIndex().attach(list);
+        FilteredList<Product> filtered = new FilteredList<>(list, p -> p.getInventoryLevel() < 25);
+        new SortedProducts(filtered, Runnable::run);
+        return list;
+    }
+
+    private static List<Product> catalog() {
+        ProductStore store = new ProductStore(ROWS);
+        List<Product> products = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            products.add(store.add("gid://shopify/Product/" + (i / 3), "", "Product " + (i / 3),
+                    "SKU-" + i, i % 50, "gid://shopify/InventoryItem/" + i));
+        }
+        return products;
+    }
+}
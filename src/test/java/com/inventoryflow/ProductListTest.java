@@ -0,0 +1,243 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.ProductSearchIndex;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks keyed merges edit rows in place, report one change per merge that views
+ * such as a FilteredList and the search index can follow, and cost nothing when
+ * nothing changed.
+ */
+class ProductListTest {
+
+    private ProductList list;
+    private ProductSearchIndex index;
+    private int changes;
+
+    @BeforeEach
+    void setUp() {
+        list = new ProductList();
+        index = new ProductSearchIndex();
+        index.attach(list);
+        list.addListener((ListChangeListener<Product>) change -> changes++);
+        list.merge(page(
+                row(1, 1, "Tee", "TEE-S", 3),
+                row(1, 2, "Tee", "TEE-M", 12),
+                row(2, 3, "Mug", "MUG", 0),
+                row(3, 4, "Cap", "CAP", 40)));
+        changes = 0;
+    }
+
+    @Test
+    void testMergeUpdatesInPlaceAndAppendsInOneChange() {
+        Product tee = list.get(0);
+        FilteredList<Product> lowStock = new FilteredList<>(list, p -> p.getInventoryLevel() < 10);
+        FilteredList<Product> search = new FilteredList<>(list, index.matcher("hoodie"));
+
+        list.merge(page(
+                row(1, 1, "Tee", "TEE-S", 30),
+                row(3, 4, "Hoodie", "CAP", 5),
+                row(4, 5, "Hoodie", "HD", 1)));
+
+        assertEquals(1, changes);
+        assertSame(tee, list.get(0));
+        assertEquals(30, tee.getInventoryLevel());
+        assertEquals(List.of("TEE-S", "TEE-M", "MUG", "CAP", "HD"), skus(list));
+        assertEquals(List.of("MUG", "CAP", "HD"), skus(lowStock));
+        assertEquals(List.of("CAP", "HD"), skus(search));
+        assertEquals(tee, list.findByInventoryItemId("gid://shopify/InventoryItem/1"));
+    }
+
+    @Test
+    void testRefreshRemovesRowsItDidNotSee() {
+        list.startRefresh();
+        list.merge(page(row(1, 2, "Tee", "TEE-M", 12)));
+        list.merge(page(row(3, 4, "Cap", "CAP", 40), row(5, 6, "Sock", "SOCK", 2)));
+        assertEquals(1, changes);
+
+        list.removeStale();
+        assertEquals(2, changes);
+        assertEquals(List.of("TEE-M", "CAP", "SOCK"), skus(list));
+        assertNull(list.findByInventoryItemId("gid://shopify/InventoryItem/1"));
+        assertEquals(List.of("SOCK"), skus(new FilteredList<>(list, index.matcher("sock"))));
+    }
+
+    @Test
+    void testReplaceProductsDropsVanishedVariants() {
+        FilteredList<Product> all = new FilteredList<>(list, p -> true);
+
+        list.replaceProducts(page(row(1, 2, "Tee", "TEE-M", 11), row(1, 7, "Tee", "TEE-L", 4)));
+
+        assertEquals(1, changes);
+        assertEquals(List.of("TEE-M", "MUG", "CAP", "TEE-L"), skus(list));
+        assertEquals(skus(list), skus(all));
+        assertEquals(11, list.get(0).getInventoryLevel());
+    }
+
+    @Test
+    void testInventoryLevelsUpdateFilteredViews() {
+        FilteredList<Product> outOfStock = new FilteredList<>(list, p -> p.getInventoryLevel() == 0);
+
+        int store = Locations.getInstance().intern("gid://shopify/Location/1", "Location 1");
+        list.updateLocationLevels(Map.of("gid://shopify/InventoryItem/1", levels(store, 3)));
+        changes = 0;
+
+        int changed = list.updateLocationLevels(Map.of(
+                "gid://shopify/InventoryItem/3", levels(store, 8),
+                "gid://shopify/InventoryItem/4", levels(store, 0),
+                "gid://shopify/InventoryItem/1", levels(store, 3),
+                "gid://shopify/InventoryItem/99", levels(store, 0)));
+
+        assertEquals(2, changed);
+        assertEquals(1, changes);
+        assertEquals(List.of("CAP"), skus(outOfStock));
+    }
+
+    @Test
+    void testShowLocationSwitchesEveryView() {
+        int warehouse = Locations.getInstance().intern("gid://shopify/Location/801", "Warehouse");
+        int storefront = Locations.getInstance().intern("gid://shopify/Location/802", "Storefront");
+        FilteredList<Product> lowStock = new FilteredList<>(list, p -> p.getInventoryLevel() < 10);
+
+        int changed = list.updateLocationLevels(Map.of(
+                "gid://shopify/InventoryItem/2", levels(warehouse, 12, storefront, 0),
+                "gid://shopify/InventoryItem/4", levels(warehouse, 38, storefront, 2)));
+        assertEquals(2, changed, "totals are unchanged but the breakdowns are new");
+        assertEquals(0, list.updateLocationLevels(Map.of(
+                "gid://shopify/InventoryItem/2", levels(warehouse, 12, storefront, 0))));
+        changes = 0;
+
+        assertEquals(3, list.showLocation(storefront));
+        assertEquals(1, changes);
+        // TEE-S and MUG have no breakdown, so nothing is known to be at the storefront
+        assertEquals(List.of(0, 0, 0, 2), levels(list));
+        assertEquals(List.of("TEE-S", "TEE-M", "MUG", "CAP"), skus(lowStock));
+        assertEquals(4, list.getStockSummary().lowStockProperty().get() + list.getStockSummary().outOfStockProperty().get());
+        assertEquals(2, list.getStockSummary().unitsOnHandProperty().get());
+
+        // Rows arriving while a location is shown show that location too
+        Product hat = new ProductStore(1).add("gid://shopify/Product/5", "", "Hat", "HAT",
+                levels(warehouse, 6, storefront, 4), "gid://shopify/InventoryItem/6");
+        list.merge(page(hat));
+        assertEquals(4, hat.getInventoryLevel());
+        assertEquals(10, hat.getTotalInventory());
+
+        list.showLocation(Locations.ALL);
+        assertEquals(List.of(3, 12, 0, 40, 10), levels(list));
+        assertEquals(List.of("TEE-S", "MUG"), skus(lowStock));
+        assertEquals(65, list.getStockSummary().unitsOnHandProperty().get());
+    }
+
+    @Test
+    void testUnchangedResyncIsNotAChange() {
+        int rows = 3_000;
+        list.clear();
+        list.merge(catalog(rows));
+        changes = 0;
+
+        list.startRefresh();
+        list.merge(catalog(rows));
+        list.removeStale();
+
+        assertEquals(0, changes);
+        assertEquals(rows, list.size());
+    }
+
+    @Test
+    void testScatteredRemovalsOnlyReportRemovedRows() {
+        int rows = 3_000;
+        list.clear();
+        List<Product> catalog = catalog(rows);
+        list.merge(catalog);
+        int[] tests = new int[1];
+        FilteredList<Product> filtered = new FilteredList<>(list, p -> {
+            tests[0]++;
+            return p.getInventoryLevel() < 25;
+        });
+        int[] reported = new int[2];
+        list.addListener((ListChangeListener<Product>) change -> {
+            while (change.next()) {
+                reported[0] += change.getRemovedSize();
+                reported[1] += change.getAddedSize();
+            }
+        });
+        changes = 0;
+        tests[0] = 0;
+
+        // Every tenth variant deleted in the store: 300 separate runs, one change
+        List<Product> kept = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if (i % 10 != 0) {
+                kept.add(catalog.get(i));
+            }
+        }
+        list.startRefresh();
+        list.merge(kept);
+        list.removeStale();
+
+        assertEquals(1, changes);
+        assertEquals(rows / 10, reported[0]);
+        assertEquals(0, reported[1], "kept rows are not reported again");
+        assertEquals(0, tests[0], "the filter doesn't re-test kept rows");
+        assertEquals(kept, list);
+        assertEquals(kept.stream().filter(p -> p.getInventoryLevel() < 25).toList(), filtered);
+        assertEquals(kept.size(), index.size());
+    }
+
+    private static List<Product> catalog(int rows) {
+        ProductStore store = new ProductStore(rows);
+        List<Product> products = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            products.add(store.add("gid://shopify/Product/" + (i / 3), "", "Product " + (i / 3),
+                    "SKU-" + i, i % 50, "gid://shopify/InventoryItem/" + i));
+        }
+        return products;
+    }
+
+    private static List<Product> page(Product... rows) {
+        return List.of(rows);
+    }
+
+    private static Product row(long product, long item, String name, String sku, int level) {
+        return new Product("gid://shopify/Product/" + product, "", name, sku, level,
+                "gid://shopify/InventoryItem/" + item);
+    }
+
+    private static int[] levels(int... pairs) {
+        int[] levels = LocationLevels.EMPTY;
+        for (int i = 0; i < pairs.length; i += 2) {
+            levels = LocationLevels.add(levels, pairs[i], pairs[i + 1]);
+        }
+        return levels;
+    }
+
+    private static List<Integer> levels(List<Product> products) {
+        List<Integer> levels = new ArrayList<>();
+        for (Product product : products) {
+            levels.add(product.getInventoryLevel());
+        }
+        return levels;
+    }
+
+    private static List<String> skus(List<Product> products) {
+        List<String> skus = new ArrayList<>();
+        for (Product product : products) {
+            skus.add(product.getSku());
+        }
+        return skus;
+    }
+}
@@ -0,0 +1,83 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.ProductSearchIndex;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Times the per-keystroke filtering the FX thread does on a large catalog: applying
+ * a search prepared against the index, as the dashboard does after searching off
+ * the FX thread, against the plain lowercase-and-contains predicate it replaced.
+ * Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class ProductSearchIndexBenchmarkTest {
+
+    private static final int VARIANTS = 50_000;
+    private static final String[] WORDS = {"Classic", "Tee", "Hoodie", "Mug", "Canvas", "Tote", "Cap", "Ünïcode"};
+
+    @Test
+    void benchmarkKeystrokeFiltering() {
+        Random random = new Random(11);
+        ProductStore store = new ProductStore(VARIANTS);
+        ObservableList<Product> list = FXCollections.observableArrayList();
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.attach(list);
+        FilteredList<Product> filtered = new FilteredList<>(list);
+        List<Product> rows = new ArrayList<>(VARIANTS);
+        for (int i = 0; i < VARIANTS; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            rows.add(store.add("gid://shopify/Product/" + i, "", name, "SKU-" + random.nextInt(100_000),
+                    random.nextInt(20), "gid://shopify/InventoryItem/" + i));
+        }
+        list.setAll(rows);
+
+        String typed = "classic tee";
+        long indexedNanos = 0;
+        long plainNanos = 0;
+        for (int run = 0; run < 6; run++) {
+            // The first runs only warm up
+            boolean timed = run >= 3;
+            for (int length = 1; length <= typed.length(); length++) {
+                String query = typed.substring(0, length);
+                long start = System.nanoTime();
+                filtered.setPredicate(plainPredicate(query));
+                long plain = System.nanoTime() - start;
+                int expected = filtered.size();
+
+                Predicate<Product> matcher = index.prepare(query, () -> false);
+                start = System.nanoTime();
+                filtered.setPredicate(matcher);
+                long indexed = System.nanoTime() - start;
+                assertEquals(expected, filtered.size(), "query " + query);
+                if (timed) {
+                    plainNanos = Math.max(plainNanos, plain);
+                    indexedNanos = Math.max(indexedNanos, indexed);
+                }
+            }
+        }
+        System.out.printf("rows=%d slowest keystroke: plain=%.1fms indexed=%.1fms%n",
+                VARIANTS, plainNanos / 1e6, indexedNanos / 1e6);
+        assertTrue(indexedNanos * 3 < plainNanos, "applying a prepared search should be several times faster");
+    }
+
+    /** The dashboard's search predicate before the index. */
+    private static Predicate<Product> plainPredicate(String query) {
+        String lower = query.toLowerCase(Locale.ROOT);
+        return product -> product.getSku().toLowerCase(Locale.ROOT).contains(lower)
+                || product.getProductName().toLowerCase(Locale.ROOT).contains(lower);
+    }
+}
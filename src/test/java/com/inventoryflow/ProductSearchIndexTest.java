@@ -0,0 +1,117 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.ProductSearchIndex;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the trigram index agrees with a plain case-insensitive substring scan while
+ * the underlying list changes, including rows whose document ID another index took.
+ */
+class ProductSearchIndexTest {
+
+    private static final String[] WORDS = {"Classic", "Tee", "Hoodie", "Mug", "Canvas", "Tote", "Cap", "Ünïcode"};
+
+    @Test
+    void testMatchesPlainScanAcrossListChanges() {
+        Random random = new Random(7);
+        ObservableList<Product> list = FXCollections.observableArrayList();
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.attach(list);
+        FilteredList<Product> filtered = new FilteredList<>(list);
+
+        list.addAll(randomRows(random, 3000));
+        String[] queries = {"t", "ee", "tee", "SKU-12", "hoodie cl", "canvas tote", "ünï", "zzz", "3\ncl"};
+        for (int round = 0; round < 6; round++) {
+            for (String query : queries) {
+                filtered.setPredicate(index.matcher(query));
+                assertEquals(scan(list, query), new ArrayList<>(filtered), "query " + query);
+            }
+            // Delta-style edits: drop a run of rows, append new ones, then replace everything
+            list.remove(round * 100, round * 100 + 1000);
+            list.addAll(randomRows(random, 1200));
+            if (round == 3) {
+                list.setAll(randomRows(random, 2000));
+            }
+        }
+
+        // Rows arriving while a search is active show up if they match
+        filtered.setPredicate(index.matcher("tee"));
+        list.add(new Product("p", "", "Late Tee", "LATE", 1, "i"));
+        assertEquals(scan(list, "tee"), new ArrayList<>(filtered));
+    }
+
+    @Test
+    void testRowsSharedBetweenIndexes() {
+        List<Product> rows = randomRows(new Random(5), 2000);
+        ObservableList<Product> first = FXCollections.observableArrayList(rows);
+        ObservableList<Product> second = FXCollections.observableArrayList(rows.subList(500, 2000));
+        ProductSearchIndex firstIndex = new ProductSearchIndex();
+        firstIndex.attach(first);
+        // Indexing the same rows again hands them other document IDs
+        new ProductSearchIndex().attach(second);
+
+        first.remove(0, 700);
+        assertEquals(1300, firstIndex.size());
+        FilteredList<Product> filtered = new FilteredList<>(first, firstIndex.matcher("tee"));
+        assertEquals(scan(first, "tee"), new ArrayList<>(filtered));
+    }
+
+    @Test
+    void testPreparedSearchOffThreadAndCancellation() throws Exception {
+        ObservableList<Product> list = FXCollections.observableArrayList();
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.attach(list);
+        list.setAll(randomRows(new Random(3), 20_000));
+
+        assertNull(index.prepare("tee", () -> true), "superseded searches give up");
+        assertNull(index.prepare("t", () -> true));
+
+        CompletableFuture<Predicate<Product>> prepared =
+                CompletableFuture.supplyAsync(() -> index.prepare("canvas", () -> false));
+        FilteredList<Product> filtered = new FilteredList<>(list, prepared.get(10, TimeUnit.SECONDS));
+        assertEquals(scan(list, "canvas"), new ArrayList<>(filtered));
+    }
+
+    private static List<Product> randomRows(Random random, int count) {
+        ProductStore store = new ProductStore(count);
+        List<Product> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            rows.add(store.add("gid://shopify/Product/" + i, "", name, "SKU-" + random.nextInt(100_000),
+                    random.nextInt(20), "gid://shopify/InventoryItem/" + i));
+        }
+        return rows;
+    }
+
+    private static List<Product> scan(List<Product> rows, String query) {
+        List<Product> matches = new ArrayList<>();
+        for (Product product : rows) {
+            if (plainPredicate(query).test(product)) {
+                matches.add(product);
+            }
+        }
+        return matches;
+    }
+
+    /** The dashboard's search predicate before the index. */
+    private static Predicate<Product> plainPredicate(String query) {
+        String lower = query.toLowerCase(Locale.ROOT);
+        return product -> product.getSku().toLowerCase(Locale.ROOT).contains(lower)
+                || product.getProductName().toLowerCase(Locale.ROOT).contains(lower);
+    }
+}
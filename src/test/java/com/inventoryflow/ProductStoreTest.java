@@ -0,0 +1,49 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ProductStore;
+import org.junit.jupiter.api.Test;
+
+class ProductStoreTest {
+
+    @Test
+    void testCopiesStayPutWhileListedRowsChange() {
+        int warehouse = Locations.getInstance().intern("gid://shopify/Location/601", "Warehouse");
+        int storefront = Locations.getInstance().intern("gid://shopify/Location/602", "Storefront");
+        ProductStore store = new ProductStore();
+        ProductList list = new ProductList();
+        list.merge(List.of(
+                store.add("gid://shopify/Product/1", "", "Tee", "TEE-S",
+                        LocationLevels.add(LocationLevels.EMPTY, warehouse, 7), "gid://shopify/InventoryItem/11"),
+                store.add("gid://shopify/Product/1", "", "Tee", "TEE-M",
+                        LocationLevels.add(LocationLevels.EMPTY, warehouse, 3), "gid://shopify/InventoryItem/12"),
+                new Product("p1", null, "Odd", "ODD", 4, "i1")));
+        list.showLocation(storefront);
+
+        List<Product> copies = ProductStore.copyOf(list);
+
+        list.updateLocationLevels(Map.of("gid://shopify/InventoryItem/11",
+                LocationLevels.add(LocationLevels.EMPTY, warehouse, 99)));
+        list.get(1).setSku("CHANGED");
+        assertEquals(3, copies.size());
+        // Copies show the total, whichever location the list shows
+        assertEquals(7, copies.get(0).getInventoryLevel());
+        assertArrayEquals(new int[] {warehouse, 7}, copies.get(0).getLocationLevels());
+        assertEquals("TEE-M", copies.get(1).getSku());
+        assertEquals("gid://shopify/Product/1", copies.get(1).getId());
+        assertEquals("gid://shopify/InventoryItem/12", copies.get(1).getInventoryItemId());
+        Product odd = copies.get(2);
+        assertEquals("p1", odd.getId());
+        assertEquals("i1", odd.getInventoryItemId());
+        assertNull(odd.getLocationLevels());
+        assertEquals(4, odd.getInventoryLevel());
+    }
+}
@@ -0,0 +1,106 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.util.ProductTree;
+import javafx.scene.control.TreeItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the grouped view builds one row per product, creates variant rows only on
+ * expand, and keeps totals and expansion in step with the variant list.
+ */
+class ProductTreeTest {
+
+    private static final int LOCATION = Locations.getInstance().intern("gid://shopify/Location/1", "Location 1");
+
+    private ProductList list;
+    private ProductTree tree;
+
+    @BeforeEach
+    void setUp() {
+        list = new ProductList();
+        list.merge(List.of(
+                row(1, 1, "TEE-S", 3),
+                row(2, 2, "MUG", 0),
+                row(1, 3, "TEE-M", 12),
+                row(1, 4, "TEE-L", 5)));
+        tree = new ProductTree(list);
+        tree.setActive(true);
+    }
+
+    @Test
+    void testGroupsVariantsAndLoadsChildrenOnExpand() {
+        List<TreeItem<Product>> rows = tree.getRoot().getChildren();
+        assertEquals(2, rows.size());
+
+        ProductTree.GroupItem tee = assertInstanceOf(ProductTree.GroupItem.class, rows.get(0));
+        assertEquals(20, tee.totalInventoryProperty().get());
+        assertEquals("3 variants", tee.summaryProperty().get());
+        assertFalse(tee.isLeaf());
+        assertTrue(tee.getChildren().isEmpty());
+
+        // A single-variant product is a plain row
+        assertFalse(rows.get(1) instanceof ProductTree.GroupItem);
+        assertEquals("MUG", rows.get(1).getValue().getSku());
+
+        tee.setExpanded(true);
+        assertEquals(3, tee.getChildren().size());
+        assertEquals("TEE-M", tee.getChildren().get(1).getValue().getSku());
+        assertTrue(ProductTree.isVariantRow(tee.getChildren().get(1)));
+        assertFalse(ProductTree.isVariantRow(tee));
+    }
+
+    @Test
+    void testTotalsFollowInPlaceUpdates() {
+        ProductTree.GroupItem tee = (ProductTree.GroupItem) tree.getRoot().getChildren().get(0);
+        list.updateLocationLevels(Map.of("gid://shopify/InventoryItem/3", stock(2)));
+
+        assertSame(tee, tree.getRoot().getChildren().get(0));
+        assertEquals(10, tee.totalInventoryProperty().get());
+    }
+
+    @Test
+    void testRegroupKeepsExpandedProducts() {
+        ProductTree.GroupItem tee = (ProductTree.GroupItem) tree.getRoot().getChildren().get(0);
+        tee.setExpanded(true);
+
+        list.merge(List.of(row(2, 5, "MUG-XL", 1)));
+
+        List<TreeItem<Product>> rows = tree.getRoot().getChildren();
+        ProductTree.GroupItem regrouped = (ProductTree.GroupItem) rows.get(0);
+        assertTrue(regrouped.isExpanded());
+        assertEquals(3, regrouped.getChildren().size());
+        ProductTree.GroupItem mug = (ProductTree.GroupItem) rows.get(1);
+        assertFalse(mug.isExpanded());
+        assertEquals(1, mug.totalInventoryProperty().get());
+    }
+
+    @Test
+    void testInactiveTreeRegroupsWhenShown() {
+        tree.setActive(false);
+        list.merge(List.of(row(3, 6, "CAP", 7)));
+        assertEquals(2, tree.getRoot().getChildren().size());
+
+        tree.setActive(true);
+        assertEquals(3, tree.getRoot().getChildren().size());
+    }
+
+    private static Product row(long product, long item, String sku, int level) {
+        return new Product("gid://shopify/Product/" + product, "", "Product " + product, sku, level,
+                "gid://shopify/InventoryItem/" + item);
+    }
+
+    /** Stock held at a single location. */
+    private static int[] stock(int available) {
+        return LocationLevels.add(LocationLevels.EMPTY, LOCATION, available);
+    }
+}
@@ -0,0 +1,61 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.model.ReorderQueue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Times inventory level updates on a large catalog with the reorder queue
+ * following the list. Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class ReorderQueueBenchmarkTest {
+
+    @Test
+    void benchmarkLevelUpdatesOnLargeCatalog() {
+        int variants = 100_000;
+        ProductList list = new ProductList();
+        ProductStore store = new ProductStore(variants);
+        List<Product> rows = new ArrayList<>(variants);
+        Random random = new Random(3);
+        for (int i = 0; i < variants; i++) {
+            rows.add(store.add("gid://shopify/Product/" + i, "", "Product", "SKU-" + i,
+                    random.nextInt(200), ReorderQueueTest.itemId(i)));
+        }
+        list.merge(rows);
+        ReorderQueue queue = new ReorderQueue(list, ReorderQueue.DEFAULT_LIMIT, 10);
+
+        long[] nanos = new long[200];
+        for (int round = 0; round < nanos.length; round++) {
+            Map<String, int[]> levels = new HashMap<>();
+            for (int i = 0; i < 50; i++) {
+                levels.put(ReorderQueueTest.itemId(random.nextInt(variants)),
+                        ReorderQueueTest.stock(random.nextInt(200)));
+            }
+            long start = System.nanoTime();
+            list.updateLocationLevels(levels);
+            nanos[round] = System.nanoTime() - start;
+        }
+        ReorderQueueTest.assertMatchesScan(list, queue);
+
+        // The first rounds only warm up; single slow rounds are collector pauses
+        long[] timed = Arrays.copyOfRange(nanos, 20, nanos.length);
+        Arrays.sort(timed);
+        long median = timed[timed.length / 2];
+        System.out.printf("rows=%d 50-level update with reorder queue: median=%.2fms slowest=%.2fms%n",
+                variants, median / 1e6, timed[timed.length - 1] / 1e6);
+        assertTrue(median < 2_000_000L, "a level update should take a small fraction of a frame");
+    }
+}
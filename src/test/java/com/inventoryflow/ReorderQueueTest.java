@@ -0,0 +1,118 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ReorderQueue;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the reorder queue shows the same levels as sorting the whole list would,
+ * through merges, level updates and removals.
+ */
+class ReorderQueueTest {
+
+    private static final int LOCATION = Locations.getInstance().intern("gid://shopify/Location/1", "Location 1");
+
+    @Test
+    void testMatchesSortedScan() {
+        Random random = new Random(5);
+        ProductList list = new ProductList();
+        list.merge(rows(random, 0, 2000));
+        ReorderQueue queue = new ReorderQueue(list, 25, 10);
+        assertMatchesScan(list, queue);
+
+        for (int round = 0; round < 30; round++) {
+            switch (round % 3) {
+                case 0 -> list.merge(rows(random, round * 100, 200));
+                case 1 -> {
+                    Map<String, int[]> levels = new HashMap<>();
+                    for (int i = 0; i < 300; i++) {
+                        levels.put(itemId(random.nextInt(3000)), stock(random.nextInt(40) - 2));
+                    }
+                    list.updateLocationLevels(levels);
+                }
+                default -> list.remove(0, 100);
+            }
+            assertMatchesScan(list, queue);
+        }
+
+        queue.setThreshold(3);
+        assertMatchesScan(list, queue);
+        queue.setLimit(200);
+        assertMatchesScan(list, queue);
+    }
+
+    @Test
+    void testTopListChangesOncePerListChange() {
+        ProductList list = new ProductList();
+        List<Product> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new Product("gid://shopify/Product/" + i, "", "Product", "SKU-" + i, 20 + i, itemId(i)));
+        }
+        list.merge(rows);
+        ReorderQueue queue = new ReorderQueue(list, 10, 10);
+        int[] changes = new int[1];
+        queue.getTop().addListener((ListChangeListener<Product>) change -> changes[0]++);
+
+        Map<String, int[]> levels = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            levels.put(itemId(i), stock(-i));
+        }
+        list.updateLocationLevels(levels);
+
+        assertEquals(1, changes[0]);
+        assertEquals(-49, queue.getTop().get(0).getInventoryLevel());
+        assertEquals(50, queue.belowThresholdProperty().get());
+        assertEquals(10, queue.getTop().size());
+    }
+
+    static void assertMatchesScan(List<Product> list, ReorderQueue queue) {
+        List<Integer> expected = new ArrayList<>();
+        for (Product product : list) {
+            if (product.getInventoryLevel() < queue.getThreshold()) {
+                expected.add(product.getInventoryLevel());
+            }
+        }
+        int below = expected.size();
+        expected.sort(null);
+        expected = expected.subList(0, Math.min(queue.getLimit(), expected.size()));
+
+        List<Integer> shown = new ArrayList<>();
+        for (Product product : queue.getTop()) {
+            assertTrue(list.contains(product));
+            shown.add(product.getInventoryLevel());
+        }
+        assertEquals(expected, shown);
+        assertEquals(below, queue.belowThresholdProperty().get());
+    }
+
+    private static List<Product> rows(Random random, int firstItem, int count) {
+        List<Product> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int item = firstItem + random.nextInt(3000);
+            rows.add(new Product("gid://shopify/Product/" + item, "", "Product", "SKU-" + item,
+                    random.nextInt(60) - 2, itemId(item)));
+        }
+        return rows;
+    }
+
+    static String itemId(int item) {
+        return "gid://shopify/InventoryItem/" + item;
+    }
+
+    /** Stock held at a single location. */
+    static int[] stock(int available) {
+        return LocationLevels.add(LocationLevels.EMPTY, LOCATION, available);
+    }
+}
@@ -0,0 +1,277 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.service.ShopifyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShopifyServiceTest {
+
+    private StandInShopify shopify;
+    private ShopifyService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shopify = new StandInShopify();
+        shopify.addProduct(1, "Classic Tee", "https://cdn.example.com/tee.jpg")
+                .variant(11, "TEE-S", 111, 4, 6)
+                .variant(12, "TEE-M", 112, 0)
+                .variant(13, null, 113);
+        shopify.addProduct(2, "Mug", null)
+                .variant(21, "MUG-1", 211, 25, 5, 1);
+        for (long id = 3; id <= 120; id++) {
+            shopify.addProduct(id, "Product " + id, "https://cdn.example.com/" + id + ".jpg")
+                    .variant(id * 10, "SKU-" + id, id * 100, (int) (id % 7));
+        }
+        service = new ShopifyService(shopify.graphqlEndpoint(), "test-token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        shopify.close();
+    }
+
+    @Test
+    void testStreamProductsDeliversEveryPage() throws Exception {
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Product> rows = new ArrayList<>();
+
+        int total = service.streamProducts(page -> {
+            pageSizes.add(page.size());
+            rows.addAll(page);
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(122, total);
+        assertEquals(122, rows.size());
+        assertTrue(pageSizes.size() > 1, "expected more than one page");
+
+        Product first = rows.get(0);
+        assertEquals("gid://shopify/Product/1", first.getId());
+        assertEquals("Classic Tee", first.getProductName());
+        assertEquals("TEE-S", first.getSku());
+        assertEquals(10, first.getInventoryLevel());
+        assertEquals("gid://shopify/InventoryItem/111", first.getInventoryItemId());
+
+        assertEquals("", rows.get(2).getSku());
+        assertEquals(0, rows.get(2).getInventoryLevel());
+        assertEquals("", rows.get(3).getImageUrl());
+        assertEquals(31, rows.get(3).getInventoryLevel());
+    }
+
+    @Test
+    void testNextPageRequestedBeforeEarlierPageIsDelivered() throws Exception {
+        int before = shopify.graphqlRequests();
+        List<Integer> requestsPerPage = new ArrayList<>();
+
+        int total = service.streamProducts(page -> {
+            if (requestsPerPage.isEmpty()) {
+                // Hold the first page on the parser thread until the fetcher asks for the next one
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (shopify.graphqlRequests() < before + 2 && System.nanoTime() < deadline) {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            requestsPerPage.add(shopify.graphqlRequests() - before);
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(122, total);
+        assertTrue(requestsPerPage.get(0) >= 2, "the second page is requested before the first is decoded and delivered");
+    }
+
+    @Test
+    void testBulkSyncMatchesPaginatedRows() throws Exception {
+        List<Product> paginated = new ArrayList<>();
+        service.streamProducts(paginated::addAll).get(10, TimeUnit.SECONDS);
+
+        List<Product> bulk = new ArrayList<>();
+        int total = service.streamProductsInBulk(bulk::addAll).get(10, TimeUnit.SECONDS);
+
+        assertEquals(paginated.size(), total);
+        assertEquals(paginated.size(), bulk.size());
+        for (int i = 0; i < paginated.size(); i++) {
+            assertSameRow(paginated.get(i), bulk.get(i));
+        }
+    }
+
+    @Test
+    void testStalledBulkSyncFallsBackToPagination() throws Exception {
+        List<Product> paginated = new ArrayList<>();
+        service.streamProducts(paginated::addAll).get(10, TimeUnit.SECONDS);
+
+        shopify.stallBulkOperations();
+        service.setBulkOperationTimeout(Duration.ofMillis(300));
+        List<Product> rows = new ArrayList<>();
+        int total = service.streamProductsInBulk(rows::addAll).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, shopify.bulkCancels());
+        assertEquals(paginated.size(), total);
+        assertEquals(paginated.size(), rows.size());
+        for (int i = 0; i < paginated.size(); i++) {
+            assertSameRow(paginated.get(i), rows.get(i));
+        }
+    }
+
+    @Test
+    void testShutdownStopsWaitingOnBulkSync() throws Exception {
+        shopify.stallBulkOperations();
+        CompletableFuture<Integer> sync = service.streamProductsInBulk(page -> { });
+        Thread.sleep(200);
+        assertFalse(sync.isDone());
+
+        service.shutdown();
+        ExecutionException error = assertThrows(ExecutionException.class, () -> sync.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, error.getCause());
+        assertEquals(1, shopify.bulkCancels());
+    }
+
+    @Test
+    void testPartitionedSyncKeepsCatalogOrder() throws Exception {
+        List<Product> sequential = new ArrayList<>();
+        service.streamProducts(sequential::addAll).get(10, TimeUnit.SECONDS);
+
+        // With latency, later ranges routinely finish before earlier ones
+        shopify.setLatencyMillis(5);
+        List<Product> partitioned = new ArrayList<>();
+        int total = service.streamProductsPartitioned(4, partitioned::addAll).get(10, TimeUnit.SECONDS);
+
+        assertEquals(sequential.size(), total);
+        assertEquals(sequential.size(), partitioned.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertSameRow(sequential.get(i), partitioned.get(i));
+        }
+    }
+
+    @Test
+    void testSyncStaysUnderCostBucket() throws Exception {
+        // 122 products at 10 points each need more than one full bucket
+        shopify.setRestoreRate(400);
+
+        List<Product> rows = new ArrayList<>();
+        int total = service.streamProducts(rows::addAll).get(20, TimeUnit.SECONDS);
+
+        assertEquals(122, total);
+        assertEquals(0, shopify.throttledResponses());
+    }
+
+    @Test
+    void testRetriesAfterTooManyRequests() throws Exception {
+        shopify.rejectNextRequests(2);
+
+        List<Product> rows = new ArrayList<>();
+        int total = service.streamProducts(rows::addAll).get(10, TimeUnit.SECONDS);
+
+        assertEquals(122, total);
+        assertEquals(122, rows.size());
+    }
+
+    @Test
+    void testCompletesTruncatedVariantsAndLevels() throws Exception {
+        StandInShopify.CannedProduct large = shopify.addProduct(500, "Large Hoodie", null);
+        for (int v = 0; v < 64; v++) {
+            if (v == 3 || v == 40) {
+                // More locations than the page query asks for, on the first and a follow-up page
+                large.variant(5000 + v, "HOOD-" + v, 50_000 + v, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 2);
+            } else {
+                large.variant(5000 + v, "HOOD-" + v, 50_000 + v, v);
+            }
+        }
+        shopify.addProduct(501, "Sticker", null).variant(5100, "STICK", 51_000, 3);
+
+        List<Product> rows = new ArrayList<>();
+        int total = service.streamProducts(rows::addAll).get(10, TimeUnit.SECONDS);
+
+        assertEquals(122 + 64 + 1, total);
+        List<Product> hoodie = rows.subList(122, 122 + 64);
+        for (int v = 0; v < 64; v++) {
+            Product row = hoodie.get(v);
+            assertEquals("gid://shopify/Product/500", row.getId());
+            assertEquals("HOOD-" + v, row.getSku());
+            assertEquals(v == 3 || v == 40 ? 13 : v, row.getInventoryLevel());
+        }
+        int twelfth = Locations.getInstance().indexOf("gid://shopify/Location/12");
+        assertEquals(12, LocationLevels.count(hoodie.get(40).getLocationLevels()));
+        assertEquals(2, hoodie.get(40).getInventoryAt(twelfth));
+        assertEquals("STICK", rows.get(122 + 64).getSku());
+
+        List<Product> bulk = new ArrayList<>();
+        service.streamProductsInBulk(bulk::addAll).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < rows.size(); i++) {
+            assertSameRow(bulk.get(i), rows.get(i));
+        }
+    }
+
+    @Test
+    void testRefreshInventoryLevelsLooksUpKnownItems() throws Exception {
+        List<Product> rows = new ArrayList<>();
+        service.streamProducts(rows::addAll).get(10, TimeUnit.SECONDS);
+        List<String> itemIds = new ArrayList<>();
+        for (Product row : rows) {
+            itemIds.add(row.getInventoryItemId());
+        }
+        itemIds.add("gid://shopify/InventoryItem/999999");
+
+        shopify.setLevels(111, 7, 7, 7, 7, 7, 7, 7);
+        shopify.setLevels(3 * 100, 42);
+        int requestsBefore = shopify.graphqlRequests();
+
+        Map<String, int[]> levels = service.refreshInventoryLevels(itemIds).get(10, TimeUnit.SECONDS);
+
+        assertEquals(122, levels.size());
+        assertEquals(49, LocationLevels.total(levels.get("gid://shopify/InventoryItem/111")));
+        assertEquals(42, LocationLevels.total(levels.get("gid://shopify/InventoryItem/300")));
+        int[] mug = levels.get("gid://shopify/InventoryItem/211");
+        assertEquals(31, LocationLevels.total(mug));
+        assertEquals(5, LocationLevels.at(mug, Locations.getInstance().indexOf("gid://shopify/Location/2")));
+        assertEquals(7, LocationLevels.count(levels.get("gid://shopify/InventoryItem/111")));
+        assertFalse(levels.containsKey("gid://shopify/InventoryItem/999999"));
+        // Two nodes() lookups cover every item now that each level brings its location,
+        // plus one to finish the item with many locations
+        assertEquals(3, shopify.graphqlRequests() - requestsBefore);
+    }
+
+    @Test
+    void testDeltaStockFindsLevelsAdjustedWithoutItemChanges() throws Exception {
+        Instant lastSync = Instant.now();
+        // A sale at Location 2 changes that inventory level only
+        shopify.adjustLevel(211, 1, 9);
+
+        Map<String, int[]> levels = service.fetchInventoryLevelsUpdatedSince(lastSync).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Set.of("gid://shopify/InventoryItem/211"), levels.keySet());
+        int[] mug = levels.get("gid://shopify/InventoryItem/211");
+        assertEquals(35, LocationLevels.total(mug));
+        assertEquals(9, LocationLevels.at(mug, Locations.getInstance().indexOf("gid://shopify/Location/2")));
+        assertEquals(3, LocationLevels.count(mug), "levels that didn't change are still reported");
+    }
+
+    static void assertSameRow(Product expected, Product actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getImageUrl(), actual.getImageUrl());
+        assertEquals(expected.getProductName(), actual.getProductName());
+        assertEquals(expected.getSku(), actual.getSku());
+        assertEquals(expected.getInventoryLevel(), actual.getInventoryLevel());
+        assertArrayEquals(expected.getLocationLevels(), actual.getLocationLevels());
+        assertEquals(expected.getInventoryItemId(), actual.getInventoryItemId());
+    }
+}
@@ -0,0 +1,107 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.ProductStore;
+import com.inventoryflow.util.SortedProducts;
+import com.inventoryflow.util.SortedProducts.Field;
+import com.inventoryflow.util.SortedProducts.SortColumn;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Times sorting a large catalog and merging changes into the sorted view, counting
+ * only the work left on the FX thread. Run with {@code -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class SortedProductsBenchmarkTest {
+
+    @Test
+    void benchmarkSortLargeCatalog() throws InterruptedException {
+        int variants = 100_000;
+        BlockingQueue<Runnable> fxQueue = new LinkedBlockingQueue<>();
+        ProductList list = new ProductList();
+        SortedProducts sorted = new SortedProducts(new FilteredList<>(list, p -> true), fxQueue::add);
+        List<Product> replayed = new ArrayList<>();
+        sorted.addListener((ListChangeListener<Product>) change -> SortedProductsTest.replay(replayed, change));
+
+        ProductStore store = new ProductStore(variants);
+        List<Product> rows = new ArrayList<>(variants);
+        Random random = new Random(31);
+        for (int i = 0; i < variants; i++) {
+            rows.add(store.add("gid://shopify/Product/" + i / 3, "", "Product " + random.nextInt(variants),
+                    "SKU-" + random.nextInt(variants), random.nextInt(200), SortedProductsTest.itemId(i)));
+        }
+        list.merge(rows);
+
+        long start = System.nanoTime();
+        sorted.setSortOrder(List.of(new SortColumn(Field.NAME, true)));
+        long request = System.nanoTime() - start;
+        Runnable apply = fxQueue.take();
+        long background = System.nanoTime() - start;
+        start = System.nanoTime();
+        apply.run();
+        long applied = System.nanoTime() - start;
+
+        // Later sorts reuse the collation keys and run warm
+        long[] resorted = new long[6];
+        long[] reapplied = new long[resorted.length];
+        for (int i = 0; i < reapplied.length; i++) {
+            start = System.nanoTime();
+            sorted.setSortOrder(List.of(new SortColumn(i % 2 == 0 ? Field.SKU : Field.NAME, false)));
+            apply = fxQueue.take();
+            resorted[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            apply.run();
+            reapplied[i] = System.nanoTime() - start;
+        }
+
+        long[] merges = new long[100];
+        for (int round = 0; round < merges.length; round++) {
+            Map<String, int[]> levels = new HashMap<>();
+            for (int i = 0; i < 50; i++) {
+                levels.put(SortedProductsTest.itemId(random.nextInt(variants)),
+                        SortedProductsTest.stock(random.nextInt(200)));
+            }
+            List<Product> added = List.of(store.add("gid://shopify/Product/x" + round, "",
+                    "Product " + random.nextInt(variants), "SKU-x" + round, 1,
+                    SortedProductsTest.itemId(variants + round)));
+            start = System.nanoTime();
+            list.updateLocationLevels(levels);
+            list.merge(added);
+            merges[round] = System.nanoTime() - start;
+        }
+        assertEquals(variants + merges.length, sorted.size());
+        assertEquals(replayed, sorted);
+
+        // The first rounds only warm up; single slow rounds are collector pauses
+        Arrays.sort(resorted, 2, resorted.length);
+        long resort = resorted[2 + (resorted.length - 2) / 2];
+        Arrays.sort(reapplied, 2, reapplied.length);
+        long reapply = reapplied[2 + (reapplied.length - 2) / 2];
+        long[] timed = Arrays.copyOfRange(merges, 10, merges.length);
+        Arrays.sort(timed);
+        long merge = timed[timed.length / 2];
+        System.out.printf("rows=%d name sort: request=%.2fms background=%.2fms apply=%.2fms"
+                        + " median re-sort: background=%.2fms apply=%.2fms"
+                        + " median merge while sorted=%.2fms slowest=%.2fms%n",
+                variants, request / 1e6, background / 1e6, applied / 1e6, resort / 1e6, reapply / 1e6,
+                merge / 1e6, timed[timed.length - 1] / 1e6);
+        assertTrue(request < background, "the sort should run off the calling thread");
+        assertTrue(reapply * 2 < resort, "most of a re-sort should run off the FX thread");
+        assertTrue(merge * 10 < resort + reapply, "merging a change should cost far less than re-sorting");
+    }
+}
@@ -0,0 +1,203 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.util.SortedProducts;
+import com.inventoryflow.util.SortedProducts.Field;
+import com.inventoryflow.util.SortedProducts.SortColumn;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the sorted view stays in order and reports changes a listener can replay,
+ * through background sorts, merges, level updates, removals and filter changes,
+ * including changes made while a sort is running.
+ */
+class SortedProductsTest {
+
+    private static final int LOCATION = Locations.getInstance().intern("gid://shopify/Location/1", "Location 1");
+
+    /** Stands in for the FX thread: finished sorts wait here until the test runs them. */
+    private final BlockingQueue<Runnable> fxQueue = new LinkedBlockingQueue<>();
+    private ProductList list;
+    private FilteredList<Product> filtered;
+    private SortedProducts sorted;
+    private List<Product> replayed;
+
+    @BeforeEach
+    void setUp() {
+        list = new ProductList();
+        filtered = new FilteredList<>(list, p -> true);
+        sorted = new SortedProducts(filtered, fxQueue::add);
+        replayed = new ArrayList<>();
+        sorted.addListener((ListChangeListener<Product>) change -> replay(replayed, change));
+    }
+
+    @Test
+    void testSortsNamesByCollationNotCodePoint() throws InterruptedException {
+        list.merge(List.of(row(1, "banana", "B-2", 5), row(2, "Cherry", "c-1", 1),
+                row(3, "apple", "A-3", 9), row(4, "Éclair", "e-4", 0), row(5, "date", "D-5", 2)));
+        sortBy(new SortColumn(Field.NAME, true));
+        assertEquals(List.of("apple", "banana", "Cherry", "date", "Éclair"), names());
+
+        sortBy(new SortColumn(Field.SKU, false));
+        assertEquals(List.of("e-4", "D-5", "c-1", "B-2", "A-3"), skus());
+
+        sorted.setSortOrder(List.of());
+        assertEquals(List.of("banana", "Cherry", "apple", "Éclair", "date"), names());
+        assertEquals(replayed, sorted);
+    }
+
+    @Test
+    void testStaysSortedThroughChanges() throws InterruptedException {
+        Random random = new Random(17);
+        list.merge(rows(random, 0, 1000));
+        sortBy(new SortColumn(Field.INVENTORY, true), new SortColumn(Field.NAME, true));
+
+        for (int round = 0; round < 40; round++) {
+            switch (round % 5) {
+                case 0 -> list.merge(rows(random, round * 50, 100));
+                case 1 -> list.merge(rows(random, round * 50, 400));
+                case 2 -> {
+                    Map<String, int[]> levels = new HashMap<>();
+                    for (int i = 0; i < 300; i++) {
+                        levels.put(itemId(random.nextInt(2000)), stock(random.nextInt(50)));
+                    }
+                    list.updateLocationLevels(levels);
+                }
+                case 3 -> list.updateLocationLevels(Map.of(itemId(random.nextInt(2000)), stock(random.nextInt(50))));
+                default -> {
+                    int bucket = random.nextInt(3);
+                    filtered.setPredicate(round % 10 == 4 ? p -> p.getInventoryLevel() % 3 != bucket : p -> true);
+                    list.remove(0, Math.min(20, list.size()));
+                }
+            }
+            assertSortedByLevelThenName();
+        }
+    }
+
+    @Test
+    void testChangesDuringSortAreKept() throws InterruptedException {
+        Random random = new Random(23);
+        list.merge(rows(random, 0, 500));
+        sorted.setSortOrder(List.of(new SortColumn(Field.SKU, true)));
+
+        // The sort works on a snapshot; these land before it is applied
+        list.merge(rows(random, 3000, 200));
+        Map<String, int[]> levels = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            levels.put(itemId(random.nextInt(3000)), stock(random.nextInt(50)));
+        }
+        list.updateLocationLevels(levels);
+        list.remove(0, 50);
+        fxQueue.take().run();
+
+        assertSameRows();
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue(sorted.get(i - 1).getSku().compareToIgnoreCase(sorted.get(i).getSku()) <= 0);
+        }
+        assertEquals(replayed, sorted);
+    }
+
+    @Test
+    void testLatestSortOrderWins() throws InterruptedException {
+        list.merge(List.of(row(1, "b", "2", 3), row(2, "a", "3", 1), row(3, "c", "1", 2)));
+        sorted.setSortOrder(List.of(new SortColumn(Field.NAME, true)));
+        sorted.setSortOrder(List.of(new SortColumn(Field.INVENTORY, false)));
+        fxQueue.take().run();
+        fxQueue.take().run();
+        assertEquals(List.of("b", "c", "a"), names());
+        assertEquals(replayed, sorted);
+    }
+
+    private void sortBy(SortColumn... columns) throws InterruptedException {
+        sorted.setSortOrder(List.of(columns));
+        fxQueue.take().run();
+        assertEquals(replayed, sorted);
+    }
+
+    private void assertSortedByLevelThenName() {
+        assertSameRows();
+        for (int i = 1; i < sorted.size(); i++) {
+            Product previous = sorted.get(i - 1);
+            Product current = sorted.get(i);
+            assertTrue(previous.getInventoryLevel() <= current.getInventoryLevel(), "sorted at " + i);
+            if (previous.getInventoryLevel() == current.getInventoryLevel()) {
+                assertTrue(previous.getProductName().compareToIgnoreCase(current.getProductName()) <= 0);
+            }
+        }
+        assertEquals(replayed, sorted);
+    }
+
+    private void assertSameRows() {
+        assertEquals(filtered.size(), sorted.size());
+        Set<Product> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+        shown.addAll(sorted);
+        for (Product product : filtered) {
+            assertTrue(shown.contains(product));
+        }
+    }
+
+    /** Applies each reported change to a plain list, which must end up equal to the view. */
+    static void replay(List<Product> replayed, ListChangeListener.Change<? extends Product> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                List<Product> moved = new ArrayList<>(replayed.subList(change.getFrom(), change.getTo()));
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    replayed.set(change.getPermutation(i), moved.get(i - change.getFrom()));
+                }
+            } else if (!change.wasUpdated()) {
+                replayed.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                replayed.addAll(change.getFrom(), change.getAddedSubList());
+            }
+        }
+    }
+
+    private List<String> names() {
+        return sorted.stream().map(Product::getProductName).toList();
+    }
+
+    private List<String> skus() {
+        return sorted.stream().map(Product::getSku).toList();
+    }
+
+    private static List<Product> rows(Random random, int firstItem, int count) {
+        List<Product> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int item = firstItem + random.nextInt(2000);
+            rows.add(new Product("gid://shopify/Product/" + item, "", "Product " + random.nextInt(40),
+                    "SKU-" + item, random.nextInt(50), itemId(item)));
+        }
+        return rows;
+    }
+
+    private static Product row(long item, String name, String sku, int level) {
+        return new Product("gid://shopify/Product/" + item, "", name, sku, level, itemId(item));
+    }
+
+    static String itemId(long item) {
+        return "gid://shopify/InventoryItem/" + item;
+    }
+
+    /** Stock held at a single location. */
+    static int[] stock(int available) {
+        return LocationLevels.add(LocationLevels.EMPTY, LOCATION, available);
+    }
+}
@@ -0,0 +1,645 @@
+package com.inventoryflow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Shopify Admin GraphQL API serving a canned catalog.
+ * Understands just enough of the product queries and bulk operation calls made by
+ * ShopifyService to exercise them end to end, including page sizes and cursors on
+ * nested variant and level connections, and simulates Shopify's query cost bucket
+ * including THROTTLED errors and HTTP 429 responses. Each inventory level keeps its
+ * own updated_at, as in Shopify, so levels can be filtered by when they changed.
+ */
+class StandInShopify implements AutoCloseable {
+
+    private static final Pattern FIRST = Pattern.compile("products\\(first: (\\d+)");
+    private static final Pattern AFTER = Pattern.compile("after: \"(\\d+)\"");
+    private static final Pattern ID_FROM = Pattern.compile("id:>=(\\d+)");
+    private static final Pattern ID_TO = Pattern.compile("id:<=(\\d+)");
+    private static final Pattern VARIANTS_FIRST = Pattern.compile("variants\\(first: (\\d+)");
+    private static final Pattern LEVELS_FIRST = Pattern.compile("inventoryLevels\\(first: (\\d+)");
+    private static final Pattern LOOKUP = Pattern.compile(
+            "(\\w+): node\\(id: \"gid://shopify/(\\w+)/(\\d+)\"\\) \\{ \\.\\.\\. on \\w+ \\{ (?:id )?\\w+\\(first: (\\d+), after: \"(\\d+)\"\\)");
+    private static final Pattern LOCATION_GID = Pattern.compile("location\\(id: \"gid://shopify/Location/(\\d+)\"");
+    private static final Pattern UPDATED_AFTER = Pattern.compile("updated_at:>'([^']+)'");
+    // Levels in the canned catalog are older than any watermark a test uses
+    private static final Instant CATALOG_CREATED = Instant.now().minus(Duration.ofDays(1));
+    private static final Pattern INVENTORY_ITEM_GID = Pattern.compile("\"gid://shopify/InventoryItem/(\\d+)\"");
+    private static final double MAXIMUM_AVAILABLE = 1000;
+    // A 1x1 PNG served for every image URL
+    private static final byte[] PIXEL_PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNk+M9QDwADhgGAWjR9awAAAABJRU5ErkJggg==");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<CannedProduct> catalog = new ArrayList<>();
+    private final AtomicInteger graphqlRequests = new AtomicInteger();
+    private final AtomicInteger bulkPolls = new AtomicInteger();
+    private final AtomicInteger bulkCancels = new AtomicInteger();
+    private volatile boolean bulkStalled;
+    private final AtomicInteger throttledResponses = new AtomicInteger();
+    private final AtomicInteger rejectNext = new AtomicInteger();
+    private final AtomicInteger imageRequests = new AtomicInteger();
+    private final AtomicInteger activeImageRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveImageRequests = new AtomicInteger();
+    private final List<String> servedImages = Collections.synchronizedList(new ArrayList<>());
+
+    private double costPerProduct = 10;
+    private double restoreRate = 1_000_000;
+    private double available = MAXIMUM_AVAILABLE;
+    private long lastRefillNanos = System.nanoTime();
+    private volatile long latencyMillis;
+
+    StandInShopify() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/graphql.json", this::handleGraphQL);
+        server.createContext("/bulk.jsonl", this::handleBulkDownload);
+        server.createContext("/cdn/", this::handleImage);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI graphqlEndpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/graphql.json");
+    }
+
+    CannedProduct addProduct(long id, String title, String imageUrl) {
+        CannedProduct product = new CannedProduct(id, title, imageUrl);
+        catalog.add(product);
+        return product;
+    }
+
+    int graphqlRequests() {
+        return graphqlRequests.get();
+    }
+
+    int throttledResponses() {
+        return throttledResponses.get();
+    }
+
+    /** Returns the URL of a product image served by this stand-in's CDN. */
+    String imageUrl(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/cdn/" + name + ".png";
+    }
+
+    int imageRequests() {
+        return imageRequests.get();
+    }
+
+    /** The most image requests that were being served at the same time. */
+    int maxConcurrentImageRequests() {
+        return maxActiveImageRequests.get();
+    }
+
+    /** Image paths in the order their requests arrived. */
+    List<String> servedImages() {
+        synchronized (servedImages) {
+            return new ArrayList<>(servedImages);
+        }
+    }
+
+    /** Replaces the available quantities of an inventory item, one per location in order. */
+    void setLevels(long inventoryItemId, int... levels) {
+        CannedVariant variant = findVariant(inventoryItemId);
+        Instant[] updatedAt = new Instant[levels.length];
+        Arrays.fill(updatedAt, Instant.now());
+        synchronized (variant) {
+            variant.levels = levels;
+            variant.levelsUpdatedAt = updatedAt;
+        }
+    }
+
+    /**
+     * Adjusts the quantity at one existing level of an inventory item, as a sale or
+     * stock adjustment does: only that level's updated_at moves, not the item's or
+     * the product's.
+     */
+    void adjustLevel(long inventoryItemId, int location, int available) {
+        CannedVariant variant = findVariant(inventoryItemId);
+        synchronized (variant) {
+            int[] levels = variant.levels.clone();
+            Instant[] updatedAt = variant.levelsUpdatedAt.clone();
+            levels[location] = available;
+            updatedAt[location] = Instant.now();
+            variant.levels = levels;
+            variant.levelsUpdatedAt = updatedAt;
+        }
+    }
+
+    /** Sets how fast the simulated cost bucket refills, in points per second. */
+    synchronized void setRestoreRate(double pointsPerSecond) {
+        restoreRate = pointsPerSecond;
+    }
+
+    /** Delays every GraphQL response to simulate a high-latency link. */
+    void setLatencyMillis(long millis) {
+        latencyMillis = millis;
+    }
+
+    /** Keeps every bulk operation RUNNING until it is canceled. */
+    void stallBulkOperations() {
+        bulkStalled = true;
+    }
+
+    int bulkCancels() {
+        return bulkCancels.get();
+    }
+
+    /** Answers the next requests with HTTP 429 and a short Retry-After. */
+    void rejectNextRequests(int count) {
+        rejectNext.set(count);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleGraphQL(HttpExchange exchange) throws IOException {
+        graphqlRequests.incrementAndGet();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (rejectNext.getAndDecrement() > 0) {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Retry-After", "0.1");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+        }
+
+        String query;
+        try (InputStream body = exchange.getRequestBody()) {
+            query = JsonParser.parseString(new String(body.readAllBytes(), StandardCharsets.UTF_8))
+                    .getAsJsonObject().get("query").getAsString();
+        }
+
+        double requestedCost = 1;
+        Matcher first = FIRST.matcher(query);
+        if (first.find()) {
+            requestedCost = 2 + Integer.parseInt(first.group(1)) * costPerProduct;
+        }
+        if (requestedCost > MAXIMUM_AVAILABLE) {
+            respond(exchange, errorResponse("Query cost is " + (int) requestedCost
+                    + ", which exceeds the single query max cost limit (1000).",
+                    "MAX_COST_EXCEEDED", requestedCost).toString());
+            return;
+        }
+
+        double currentlyAvailable;
+        synchronized (this) {
+            long now = System.nanoTime();
+            available = Math.min(MAXIMUM_AVAILABLE,
+                    available + (now - lastRefillNanos) / 1e9 * restoreRate);
+            lastRefillNanos = now;
+            if (requestedCost > available) {
+                throttledResponses.incrementAndGet();
+                JsonObject response = errorResponse("Throttled", "THROTTLED", requestedCost);
+                response.add("extensions", costExtensions(requestedCost, available));
+                respond(exchange, response.toString());
+                return;
+            }
+            available -= requestedCost;
+            currentlyAvailable = available;
+        }
+
+        JsonObject data = new JsonObject();
+        if (query.contains("bulkOperationRunQuery")) {
+            bulkPolls.set(0);
+            JsonObject operation = new JsonObject();
+            operation.addProperty("id", "gid://shopify/BulkOperation/1");
+            operation.addProperty("status", "CREATED");
+            JsonObject result = new JsonObject();
+            result.add("bulkOperation", operation);
+            result.add("userErrors", new JsonArray());
+            data.add("bulkOperationRunQuery", result);
+        } else if (query.contains("bulkOperationCancel")) {
+            bulkCancels.incrementAndGet();
+            JsonObject operation = new JsonObject();
+            operation.addProperty("status", "CANCELING");
+            JsonObject result = new JsonObject();
+            result.add("bulkOperation", operation);
+            result.add("userErrors", new JsonArray());
+            data.add("bulkOperationCancel", result);
+        } else if (query.contains("currentBulkOperation")) {
+            boolean done = bulkPolls.incrementAndGet() > 1 && !bulkStalled;
+            JsonObject operation = new JsonObject();
+            operation.addProperty("id", "gid://shopify/BulkOperation/1");
+            operation.addProperty("status", done ? "COMPLETED" : "RUNNING");
+            if (done) {
+                operation.addProperty("url", "http://127.0.0.1:"
+                        + server.getAddress().getPort() + "/bulk.jsonl");
+            }
+            data.add("currentBulkOperation", operation);
+        } else if (query.contains("locations(first:")) {
+            data.add("locations", locationsPage(query));
+        } else if (query.contains("location(id:")) {
+            data.add("location", locationLevels(query));
+        } else if (query.contains("nodes(ids:")) {
+            data.add("nodes", inventoryItemNodes(query));
+        } else if (query.contains("node(id:")) {
+            data = nodeLookups(query);
+        } else {
+            data.add("products", productsPage(query));
+        }
+
+        JsonObject response = new JsonObject();
+        response.add("data", data);
+        response.add("extensions", costExtensions(requestedCost, currentlyAvailable));
+        respond(exchange, response.toString());
+    }
+
+    private JsonObject errorResponse(String message, String code, double requestedCost) {
+        JsonObject extensions = new JsonObject();
+        extensions.addProperty("code", code);
+        if (code.equals("MAX_COST_EXCEEDED")) {
+            extensions.addProperty("cost", requestedCost);
+            extensions.addProperty("maxCost", MAXIMUM_AVAILABLE);
+        }
+        JsonObject error = new JsonObject();
+        error.addProperty("message", message);
+        error.add("extensions", extensions);
+        JsonArray errors = new JsonArray();
+        errors.add(error);
+        JsonObject response = new JsonObject();
+        response.add("errors", errors);
+        return response;
+    }
+
+    private JsonObject costExtensions(double requestedCost, double currentlyAvailable) {
+        JsonObject throttleStatus = new JsonObject();
+        throttleStatus.addProperty("maximumAvailable", MAXIMUM_AVAILABLE);
+        throttleStatus.addProperty("currentlyAvailable", currentlyAvailable);
+        throttleStatus.addProperty("restoreRate", restoreRate);
+        JsonObject cost = new JsonObject();
+        cost.addProperty("requestedQueryCost", requestedCost);
+        cost.addProperty("actualQueryCost", requestedCost);
+        cost.add("throttleStatus", throttleStatus);
+        JsonObject extensions = new JsonObject();
+        extensions.add("cost", cost);
+        return extensions;
+    }
+
+    private JsonObject productsPage(String query) {
+        Matcher first = FIRST.matcher(query);
+        int pageSize = first.find() ? Integer.parseInt(first.group(1)) : 50;
+        Matcher after = AFTER.matcher(query);
+        long afterId = after.find() ? Long.parseLong(after.group(1)) : Long.MIN_VALUE;
+        Matcher from = ID_FROM.matcher(query);
+        long fromId = from.find() ? Long.parseLong(from.group(1)) : Long.MIN_VALUE;
+        Matcher to = ID_TO.matcher(query);
+        long toId = to.find() ? Long.parseLong(to.group(1)) : Long.MAX_VALUE;
+
+        List<CannedProduct> matching = new ArrayList<>();
+        for (CannedProduct product : catalog) {
+            if (product.id >= fromId && product.id <= toId) {
+                matching.add(product);
+            }
+        }
+        if (query.contains("reverse: true")) {
+            Collections.reverse(matching);
+        }
+
+        JsonArray edges = new JsonArray();
+        int index = 0;
+        while (index < matching.size() && matching.get(index).id <= afterId) {
+            index++;
+        }
+        int end = Math.min(index + pageSize, matching.size());
+        for (int i = index; i < end; i++) {
+            CannedProduct product = matching.get(i);
+            JsonObject edge = new JsonObject();
+            edge.addProperty("cursor", Long.toString(product.id));
+            edge.add("node", product.toNode(limit(VARIANTS_FIRST, query), limit(LEVELS_FIRST, query)));
+            edges.add(edge);
+        }
+
+        // Fields come back in the order the query asked for them, pageInfo first
+        JsonObject pageInfo = new JsonObject();
+        pageInfo.addProperty("hasNextPage", end < matching.size());
+        pageInfo.addProperty("endCursor", end > index ? Long.toString(matching.get(end - 1).id) : null);
+        JsonObject products = new JsonObject();
+        products.add("pageInfo", pageInfo);
+        products.add("edges", edges);
+        return products;
+    }
+
+    /** Lists every location any variant has a level at. */
+    private JsonObject locationsPage(String query) {
+        int count = 0;
+        for (CannedProduct product : catalog) {
+            for (CannedVariant variant : product.variants) {
+                count = Math.max(count, variant.levels.length);
+            }
+        }
+        List<JsonObject> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(location(i));
+        }
+        return connection(nodes, after(query), limit(Pattern.compile("locations\\(first: (\\d+)"), query));
+    }
+
+    /** Answers a location's inventory levels, filtered on their updated_at if the query asks. */
+    private JsonObject locationLevels(String query) {
+        Matcher gid = LOCATION_GID.matcher(query);
+        if (!gid.find()) {
+            return null;
+        }
+        int location = Integer.parseInt(gid.group(1)) - 1;
+        Matcher updated = UPDATED_AFTER.matcher(query);
+        Instant since = updated.find() ? Instant.parse(updated.group(1)) : Instant.MIN;
+
+        List<JsonObject> nodes = new ArrayList<>();
+        for (CannedProduct product : catalog) {
+            for (CannedVariant variant : product.variants) {
+                Instant[] updatedAt = variant.levelsUpdatedAt;
+                if (location < updatedAt.length && updatedAt[location].isAfter(since)) {
+                    JsonObject item = new JsonObject();
+                    item.addProperty("id", variant.inventoryItemGid());
+                    JsonObject level = new JsonObject();
+                    level.add("item", item);
+                    nodes.add(level);
+                }
+            }
+        }
+        JsonObject result = new JsonObject();
+        result.add("inventoryLevels", connection(nodes, after(query), limit(LEVELS_FIRST, query)));
+        return result;
+    }
+
+    /** The index after a numeric cursor, or 0 without one. */
+    private static int after(String query) {
+        Matcher after = AFTER.matcher(query);
+        return after.find() ? Integer.parseInt(after.group(1)) + 1 : 0;
+    }
+
+    /** Answers a nodes(ids:) lookup of inventory items, with null for unknown IDs. */
+    private JsonArray inventoryItemNodes(String query) {
+        int levelLimit = limit(LEVELS_FIRST, query);
+        JsonArray nodes = new JsonArray();
+        Matcher gid = INVENTORY_ITEM_GID.matcher(query);
+        while (gid.find()) {
+            CannedVariant variant = findVariant(Long.parseLong(gid.group(1)));
+            if (variant == null) {
+                nodes.add((JsonObject) null);
+                continue;
+            }
+            JsonObject node = new JsonObject();
+            node.addProperty("id", variant.inventoryItemGid());
+            node.add("inventoryLevels", variant.levelsConnection(0, levelLimit));
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private CannedVariant findVariant(long inventoryItemId) {
+        for (CannedProduct product : catalog) {
+            for (CannedVariant variant : product.variants) {
+                if (variant.inventoryItemId == inventoryItemId) {
+                    return variant;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Answers a batch of aliased node lookups continuing nested connections. */
+    private JsonObject nodeLookups(String query) {
+        int levelLimit = limit(LEVELS_FIRST, query);
+        JsonObject data = new JsonObject();
+        Matcher lookup = LOOKUP.matcher(query);
+        while (lookup.find()) {
+            String type = lookup.group(2);
+            long id = Long.parseLong(lookup.group(3));
+            int first = Integer.parseInt(lookup.group(4));
+            int from = Integer.parseInt(lookup.group(5)) + 1;
+            JsonObject node = new JsonObject();
+            for (CannedProduct product : catalog) {
+                if (type.equals("Product") && product.id == id) {
+                    node.add("variants", product.variantsConnection(from, first, levelLimit));
+                }
+                for (CannedVariant variant : product.variants) {
+                    if (type.equals("InventoryItem") && variant.inventoryItemId == id) {
+                        node.addProperty("id", variant.inventoryItemGid());
+                        node.add("inventoryLevels", variant.levelsConnection(from, first));
+                    }
+                }
+            }
+            data.add(lookup.group(1), node);
+        }
+        return data;
+    }
+
+    private static int limit(Pattern pattern, String query) {
+        Matcher matcher = pattern.matcher(query);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : Integer.MAX_VALUE;
+    }
+
+    /** Builds a connection over items [from, from + first), with cursors being item indexes. */
+    private static JsonObject connection(List<JsonObject> nodes, int from, int first) {
+        int end = (int) Math.min((long) from + first, nodes.size());
+        JsonArray edges = new JsonArray();
+        for (int i = from; i < end; i++) {
+            JsonObject edge = new JsonObject();
+            edge.add("node", nodes.get(i));
+            edges.add(edge);
+        }
+        JsonObject pageInfo = new JsonObject();
+        pageInfo.addProperty("hasNextPage", end < nodes.size());
+        pageInfo.addProperty("endCursor", Integer.toString(end - 1));
+        JsonObject connection = new JsonObject();
+        connection.add("pageInfo", pageInfo);
+        connection.add("edges", edges);
+        return connection;
+    }
+
+    private void handleBulkDownload(HttpExchange exchange) throws IOException {
+        StringBuilder jsonl = new StringBuilder();
+        for (CannedProduct product : catalog) {
+            product.appendJsonl(jsonl);
+        }
+        respond(exchange, jsonl.toString());
+    }
+
+    private void handleImage(HttpExchange exchange) throws IOException {
+        imageRequests.incrementAndGet();
+        servedImages.add(exchange.getRequestURI().getPath());
+        maxActiveImageRequests.accumulateAndGet(activeImageRequests.incrementAndGet(), Math::max);
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            exchange.sendResponseHeaders(200, PIXEL_PNG.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PIXEL_PNG);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeImageRequests.decrementAndGet();
+        }
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static class CannedProduct {
+        final long id;
+        final String title;
+        final String imageUrl;
+        final List<CannedVariant> variants = new ArrayList<>();
+
+        CannedProduct(long id, String title, String imageUrl) {
+            this.id = id;
+            this.title = title;
+            this.imageUrl = imageUrl;
+        }
+
+        CannedProduct variant(long variantId, String sku, long inventoryItemId, int... levels) {
+            variants.add(new CannedVariant(variantId, sku, inventoryItemId, levels));
+            return this;
+        }
+
+        String gid() {
+            return "gid://shopify/Product/" + id;
+        }
+
+        JsonObject toNode(int variantLimit, int levelLimit) {
+            JsonObject node = new JsonObject();
+            node.addProperty("id", gid());
+            node.addProperty("title", title);
+            node.add("featuredImage", image());
+            node.add("variants", variantsConnection(0, variantLimit, levelLimit));
+            return node;
+        }
+
+        JsonObject variantsConnection(int from, int first, int levelLimit) {
+            List<JsonObject> nodes = new ArrayList<>();
+            for (CannedVariant variant : variants) {
+                JsonObject item = new JsonObject();
+                item.addProperty("id", variant.inventoryItemGid());
+                item.add("inventoryLevels", variant.levelsConnection(0, levelLimit));
+
+                JsonObject variantNode = new JsonObject();
+                variantNode.addProperty("id", variant.gid());
+                variantNode.addProperty("sku", variant.sku);
+                variantNode.add("inventoryItem", item);
+                nodes.add(variantNode);
+            }
+            return connection(nodes, from, first);
+        }
+
+        void appendJsonl(StringBuilder jsonl) {
+            JsonObject line = new JsonObject();
+            line.addProperty("id", gid());
+            line.addProperty("title", title);
+            line.add("featuredImage", image());
+            jsonl.append(line).append('\n');
+
+            for (CannedVariant variant : variants) {
+                JsonObject item = new JsonObject();
+                item.addProperty("id", variant.inventoryItemGid());
+                JsonObject variantLine = new JsonObject();
+                variantLine.addProperty("id", variant.gid());
+                variantLine.addProperty("sku", variant.sku);
+                variantLine.add("inventoryItem", item);
+                variantLine.addProperty("__parentId", gid());
+                jsonl.append(variantLine).append('\n');
+
+                for (int i = 0; i < variant.levels.length; i++) {
+                    JsonObject level = new JsonObject();
+                    level.addProperty("available", variant.levels[i]);
+                    level.add("location", location(i));
+                    level.addProperty("__parentId", variant.gid());
+                    jsonl.append(level).append('\n');
+                }
+            }
+        }
+
+        private JsonObject image() {
+            if (imageUrl == null) {
+                return null;
+            }
+            JsonObject image = new JsonObject();
+            image.addProperty("url", imageUrl);
+            return image;
+        }
+    }
+
+    static class CannedVariant {
+        final long id;
+        final String sku;
+        final long inventoryItemId;
+        volatile int[] levels;
+        volatile Instant[] levelsUpdatedAt;
+
+        CannedVariant(long id, String sku, long inventoryItemId, int[] levels) {
+            this.id = id;
+            this.sku = sku;
+            this.inventoryItemId = inventoryItemId;
+            this.levels = levels;
+            this.levelsUpdatedAt = new Instant[levels.length];
+            Arrays.fill(levelsUpdatedAt, CATALOG_CREATED);
+        }
+
+        String gid() {
+            return "gid://shopify/ProductVariant/" + id;
+        }
+
+        String inventoryItemGid() {
+            return "gid://shopify/InventoryItem/" + inventoryItemId;
+        }
+
+        JsonObject levelsConnection(int from, int first) {
+            List<JsonObject> nodes = new ArrayList<>();
+            for (int i = 0; i < levels.length; i++) {
+                JsonObject level = new JsonObject();
+                level.addProperty("available", levels[i]);
+                level.add("location", location(i));
+                nodes.add(level);
+            }
+            return connection(nodes, from, first);
+        }
+    }
+
+    /** The location of a variant's {@code index}th level; every variant uses the same ones. */
+    static JsonObject location(int index) {
+        JsonObject location = new JsonObject();
+        location.addProperty("id", "gid://shopify/Location/" + (index + 1));
+        location.addProperty("name", "Location " + (index + 1));
+        return location;
+    }
+}
@@ -0,0 +1,96 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.inventoryflow.model.LocationLevels;
+import com.inventoryflow.model.Locations;
+import com.inventoryflow.model.Product;
+import com.inventoryflow.model.ProductList;
+import com.inventoryflow.model.StockSummary;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the stock counters kept alongside the product list agree with a full scan
+ * through merges, refreshes, level updates and plain list edits.
+ */
+class StockSummaryTest {
+
+    private static final int LOCATION = Locations.getInstance().intern("gid://shopify/Location/1", "Location 1");
+
+    @Test
+    void testCountersMatchScanAcrossChanges() {
+        Random random = new Random(11);
+        ProductList list = new ProductList();
+        StockSummary summary = list.getStockSummary();
+        int[] published = new int[1];
+        summary.unitsOnHandProperty().addListener((obs, oldUnits, units) -> published[0]++);
+
+        for (int round = 0; round < 20; round++) {
+            switch (round % 4) {
+                case 0 -> list.merge(rows(random, 500));
+                case 1 -> {
+                    list.startRefresh();
+                    list.merge(rows(random, 300));
+                    list.removeStale();
+                }
+                case 2 -> {
+                    Map<String, int[]> levels = new HashMap<>();
+                    for (int i = 0; i < 200; i++) {
+                        levels.put(itemId(random.nextInt(1000)), stock(random.nextInt(30) - 2));
+                    }
+                    list.updateLocationLevels(levels);
+                }
+                default -> list.remove(0, Math.min(50, list.size()));
+            }
+            assertMatchesScan(list, summary);
+        }
+        assertTrue(published[0] <= 25, "published once per change, not per row");
+
+        list.clear();
+        assertMatchesScan(list, summary);
+        assertEquals(0, summary.unitsOnHandProperty().get());
+    }
+
+    private static void assertMatchesScan(List<Product> rows, StockSummary summary) {
+        int outOfStock = 0;
+        int lowStock = 0;
+        long units = 0;
+        for (Product product : rows) {
+            int level = product.getInventoryLevel();
+            if (level == 0) {
+                outOfStock++;
+            } else if (level < 10) {
+                lowStock++;
+            }
+            units += Math.max(level, 0);
+        }
+        assertEquals(outOfStock, summary.outOfStockProperty().get());
+        assertEquals(lowStock, summary.lowStockProperty().get());
+        assertEquals(units, summary.unitsOnHandProperty().get());
+    }
+
+    private static List<Product> rows(Random random, int count) {
+        List<Product> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int item = random.nextInt(1000);
+            rows.add(new Product("gid://shopify/Product/" + item / 3, "", "Product", "SKU-" + item,
+                    random.nextInt(40) - 2, itemId(item)));
+        }
+        return rows;
+    }
+
+    private static String itemId(int item) {
+        return "gid://shopify/InventoryItem/" + item;
+    }
+
+    /** Stock held at a single location. */
+    private static int[] stock(int available) {
+        return LocationLevels.add(LocationLevels.EMPTY, LOCATION, available);
+    }
+}
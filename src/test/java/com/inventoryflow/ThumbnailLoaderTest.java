@@ -0,0 +1,119 @@
+package com.inventoryflow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.inventoryflow.util.ImageCache;
+import com.inventoryflow.util.ThumbnailLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ThumbnailLoaderTest {
+
+    private static final int ROWS = 200;
+
+    @TempDir
+    Path cacheDir;
+
+    private StandInShopify shopify;
+    private ThumbnailLoader loader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shopify = new StandInShopify();
+        shopify.setLatencyMillis(20);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (loader != null) {
+            loader.shutdown();
+            // Let a load already under way finish writing before the cache dir is removed
+            Thread.sleep(200);
+        }
+        shopify.close();
+    }
+
+    @Test
+    void testVisibleRowsLoadFirstAndReusedCellsAreCancelled() throws Exception {
+        loader = new ThumbnailLoader(new ImageCache(cacheDir, ROWS), 1, this::urlAt, Runnable::run);
+
+        // Fast scrolling queued loads for every row that flew past
+        Set<Integer> delivered = ConcurrentHashMap.newKeySet();
+        List<ThumbnailLoader.Request> requests = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++) {
+            int r = row;
+            requests.add(loader.request(urlAt(row), row, image -> delivered.add(r)));
+        }
+        // ...and the table came to rest at rows 150-159; cells for rows 0-99 were reused
+        loader.setViewport(150, 159);
+        for (int row = 0; row < 100; row++) {
+            requests.get(row).cancel();
+        }
+
+        CountDownLatch visible = new CountDownLatch(1);
+        loader.request(urlAt(159), 159, image -> visible.countDown());
+        assertTrue(visible.await(10, TimeUnit.SECONDS));
+
+        List<String> served = shopify.servedImages();
+        // At most one request may have been picked before the viewport was known
+        int visibleServed = 0;
+        for (String path : served) {
+            int row = Integer.parseInt(path.replaceAll("\\D", ""));
+            if (row >= 150 && row <= 159) {
+                visibleServed++;
+            }
+        }
+        assertEquals(10, visibleServed);
+        assertTrue(served.size() <= 11, "only visible rows load before them: " + served);
+        for (int row = 0; row < 100; row++) {
+            assertFalse(delivered.contains(row), "cancelled row " + row + " was delivered");
+        }
+    }
+
+    @Test
+    void testCapsConcurrentFetchesAndPrefetchesAhead() throws Exception {
+        ImageCache cache = new ImageCache(cacheDir, ROWS);
+        loader = new ThumbnailLoader(cache, 3, this::urlAt, Runnable::run);
+
+        CountDownLatch loaded = new CountDownLatch(40);
+        for (int row = 0; row < 40; row++) {
+            loader.request(urlAt(row), row, image -> loaded.countDown());
+        }
+        assertTrue(loaded.await(10, TimeUnit.SECONDS));
+        assertTrue(shopify.maxConcurrentImageRequests() <= 3);
+
+        // Scrolling down from the top queues the rows just below the viewport
+        loader.setViewport(1, 40);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cachedRows(cache, 41, 50) < 10 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(10, cachedRows(cache, 41, 50));
+        assertTrue(shopify.servedImages().contains("/cdn/row-50.png"));
+        assertFalse(shopify.servedImages().contains("/cdn/row-51.png"));
+    }
+
+    private int cachedRows(ImageCache cache, int first, int last) {
+        int cached = 0;
+        for (int row = first; row <= last; row++) {
+            if (cache.getIfPresent(urlAt(row)) != null) {
+                cached++;
+            }
+        }
+        return cached;
+    }
+
+    private String urlAt(int row) {
+        return row >= 0 && row < ROWS ? shopify.imageUrl("row-" + row) : null;
+    }
+}